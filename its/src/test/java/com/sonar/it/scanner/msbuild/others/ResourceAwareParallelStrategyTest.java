@@ -0,0 +1,91 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.others;
+
+import com.sonar.it.scanner.msbuild.utils.ResourceAwareParallelStrategy;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ResourceAwareParallelStrategyTest {
+
+  // Same pool as the one JUnit builds from the configuration, with more tasks waiting for permits than the pool can have threads
+  @Test
+  void threadCountStaysBounded_WhenEveryWorkerWaitsForPermits() throws Exception {
+    var configuration = new ResourceAwareParallelStrategy().createConfiguration(null);
+    var pool = new ForkJoinPool(configuration.getParallelism(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+      configuration.getCorePoolSize(), configuration.getMaxPoolSize(), configuration.getMinimumRunnable(), configuration.getSaturatePredicate(),
+      configuration.getKeepAliveSeconds(), TimeUnit.SECONDS);
+    var permits = new Semaphore(0, true);
+    var taskCount = configuration.getMaxPoolSize() * 2;
+    try {
+      var tasks = IntStream.range(0, taskCount).mapToObj(x -> pool.submit(() -> {
+        ForkJoinPool.managedBlock(new PermitBlocker(permits));
+        return null;
+      })).toList();
+
+      await().atMost(Duration.ofSeconds(30)).until(() -> pool.getPoolSize() == configuration.getMaxPoolSize());
+      Thread.sleep(500);  // Leave time for a compensating thread beyond the limit to show up
+      assertThat(pool.getPoolSize()).isEqualTo(configuration.getMaxPoolSize());
+      assertThat(tasks).noneMatch(ForkJoinTask::isDone);
+
+      permits.release(taskCount);
+      for (var task : tasks) {
+        task.get(30, TimeUnit.SECONDS);  // A worker refused by the pool would fail with a RejectedExecutionException
+      }
+    } finally {
+      permits.release(taskCount);
+      pool.shutdownNow();
+    }
+  }
+
+  private static final class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+    private final Semaphore permits;
+    private boolean isAcquired;
+
+    private PermitBlocker(Semaphore permits) {
+      this.permits = permits;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!isAcquired) {
+        permits.acquire();
+        isAcquired = true;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (!isAcquired) {
+        isAcquired = permits.tryAcquire();
+      }
+      return isAcquired;
+    }
+  }
+}
@@ -21,8 +21,11 @@ package com.sonar.it.scanner.msbuild.sonarcloud;
 
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.FixtureMaterializer;
 import com.sonar.it.scanner.msbuild.utils.Property;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
@@ -37,7 +40,7 @@ import org.slf4j.LoggerFactory;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({CloudTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, CloudTests.class, ContextExtension.class})
 class CloudIncrementalPRAnalysisTest {
   private final static Logger LOG = LoggerFactory.getLogger(CloudIncrementalPRAnalysisTest.class);
   private final static String DIRECTORY_NAME = "IncrementalPRAnalysis";
@@ -48,8 +51,8 @@ class CloudIncrementalPRAnalysisTest {
   };
 
   @Test
-  void master_emptyCache() {
-    var result = AnalysisContext.forCloud(DIRECTORY_NAME).begin.execute(null);
+  void master_emptyCache(TestContext testContext) {
+    var result = AnalysisContext.forCloud(testContext, DIRECTORY_NAME).begin.execute(null);
 
     assertThat(result.getLogs()).contains(
       "Processing analysis cache",
@@ -58,23 +61,23 @@ class CloudIncrementalPRAnalysisTest {
   }
 
   @Test
-  void prWithoutChanges_producesUnchangedFilesWithAllFiles() throws IOException {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void prWithoutChanges_producesUnchangedFilesWithAllFiles(TestContext testContext) throws IOException {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     context.runAnalysis();  // Initial build - master.
 
     context.begin.setProperty(prArguments);
-    var logs = context.runAnalysis().logs();  // PR analysis.
+    var result = context.runAnalysis();  // PR analysis.
 
     // Verify that the file hashes are considered and all of them will be skipped.
     // We do not know the total number of cache entries because other plugin can cache as well.
-    TestUtils.matchesSingleLine(logs, "Incremental PR analysis: 3 files out of \\d+ are unchanged");
+    TestUtils.matchesSingleLine(result, "Incremental PR analysis: 3 files out of \\d+ are unchanged");
     Path unchangedFilesPath = unchangedFilesPath(context.projectDir);
     assertThat(Files.readString(unchangedFilesPath)).contains("Unchanged1.cs", "Unchanged2.cs", "WithChanges.cs");
   }
 
   @Test
-  void prWithChanges_detectsUnchangedFile() throws IOException {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void prWithChanges_detectsUnchangedFile(TestContext testContext) throws IOException {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     context.runAnalysis();  // Initial build - master.
 
     changeFile(context.projectDir, Paths.get("IncrementalPRAnalysis", "WithChanges.cs")); // Change a file to force analysis.
@@ -85,10 +88,10 @@ class CloudIncrementalPRAnalysisTest {
   }
 
   @Test
-  void prWithChanges_basedOnDifferentBranchThanMaster_detectsUnchangedFiles() throws IOException {
+  void prWithChanges_basedOnDifferentBranchThanMaster_detectsUnchangedFiles(TestContext testContext) throws IOException {
     // s4net-its organization is free and doesn't have branch analysis.
     // This project needs to be manually created and its "master" branch renamed to "different-branch".
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     context.begin.setProperty("sonar.branch.name", "different-branch");
     context.runAnalysis();  // Initial build - different branch.
 
@@ -114,6 +117,7 @@ class CloudIncrementalPRAnalysisTest {
   }
 
   private static void changeFile(Path projectDir, Path filePath) throws IOException {
+    FixtureMaterializer.breakLink(projectDir.resolve(filePath));
     File fileToBeChanged = projectDir.resolve(filePath).toFile();
     BufferedWriter writer = new BufferedWriter(new FileWriter(fileToBeChanged, true));
     writer.append("\nclass Appended {  /* FIXME: S1134 in third file that will have changes on PR */ }");
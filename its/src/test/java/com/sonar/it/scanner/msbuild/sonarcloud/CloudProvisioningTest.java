@@ -26,6 +26,8 @@ import com.sonar.it.scanner.msbuild.utils.Property;
 import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
 import com.sonar.it.scanner.msbuild.utils.ScannerCommand;
 import com.sonar.it.scanner.msbuild.utils.TempDirectory;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.nio.file.Paths;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -36,14 +38,14 @@ import org.junit.jupiter.params.provider.ValueSource;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
-@ExtendWith({CloudTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, CloudTests.class, ContextExtension.class})
 class CloudProvisioningTest {
   private static final String DIRECTORY_NAME = "JreProvisioning";
   private static final Property activateProvisioning = new Property("sonar.scanner.skipJreProvisioning", null); // Default ScannerCommand behavior turns it off
 
   @Test
-  void different_HostUrl_SonarcloudUrl_LogsAndExitsEarly() {
-    var result = ScannerCommand.createBeginStep(ScannerClassifier.NET, CloudConstants.SONARCLOUD_TOKEN, ContextExtension.currentTempDir(), "AnyKey")
+  void different_HostUrl_SonarcloudUrl_LogsAndExitsEarly(TestContext testContext) {
+    var result = ScannerCommand.createBeginStep(ScannerClassifier.NET, CloudConstants.SONARCLOUD_TOKEN, testContext.tempDir(), "AnyKey")
       .setOrganization("org")
       .setProperty("sonar.host.url", "http://localhost:4242")
       .setProperty("sonar.scanner.sonarcloudUrl", CloudConstants.SONARCLOUD_URL)
@@ -56,8 +58,8 @@ class CloudProvisioningTest {
   }
 
   @Test
-  void skipJreProvisioning_DoesNotDownloadJre() {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void skipJreProvisioning_DoesNotDownloadJre(TestContext testContext) {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     var logs = context.begin.execute(null).getLogs(); // sonar.scanner.skipJreProvisioning=true is the default behavior of ScannerCommand in ITs
 
     assertThat(logs)
@@ -72,8 +74,8 @@ class CloudProvisioningTest {
 
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
-  void cacheMiss_DownloadsCache(Boolean useSonarScannerCLI) {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void cacheMiss_DownloadsCache(Boolean useSonarScannerCLI, TestContext testContext) {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     try (var userHome = new TempDirectory("junit-cache-miss-")) { // context.projectDir has a test name in it and that leads to too long path
       context.begin
         .setProperty(activateProvisioning)
@@ -90,8 +92,8 @@ class CloudProvisioningTest {
   }
 
   @Test
-  void cacheHit_ReusesCachedFiles() {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void cacheHit_ReusesCachedFiles(TestContext testContext) {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     try (var userHome = new TempDirectory("junit-cache-hit-")) { // context.projectDir has a test name in it and that leads to too long path
       context.begin
         .setProperty(activateProvisioning)
@@ -109,8 +111,8 @@ class CloudProvisioningTest {
   }
 
   @Test
-  void parameters_Propagated() {
-    var context = AnalysisContext.forCloud(DIRECTORY_NAME);
+  void parameters_Propagated(TestContext testContext) {
+    var context = AnalysisContext.forCloud(testContext, DIRECTORY_NAME);
     context.begin
       .setProperty(activateProvisioning)
       .setProperty("sonar.scanner.os", "windows")
@@ -22,20 +22,22 @@ package com.sonar.it.scanner.msbuild.sonarcloud;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
 import com.sonar.it.scanner.msbuild.utils.ScannerCommand;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
-@ExtendWith({CloudTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, CloudTests.class, ContextExtension.class})
 class CloudRegionTest {
 
   @Test
-  void region_us() {
-    var projectDir = TestUtils.projectDir(ContextExtension.currentTempDir(), "ProjectUnderTest");
-    var result = ScannerCommand.createBeginStep(ScannerClassifier.NET, null, projectDir, ContextExtension.currentTestName())
+  void region_us(TestContext testContext) {
+    var projectDir = TestUtils.projectDir(testContext.tempDir(), "ProjectUnderTest");
+    var result = ScannerCommand.createBeginStep(ScannerClassifier.NET, null, projectDir, testContext.testName())
       .setOrganization(CloudConstants.SONARCLOUD_ORGANIZATION)
       .setProperty("sonar.region", "us")
       .setDebugLogs()
@@ -49,7 +51,7 @@ class CloudRegionTest {
       "Downloading from https://sonarqube.us/api/settings/values?component=unknown",
       "Downloading from https://api.sonarqube.us/analysis/version",
       "Using SonarCloud.",
-      "Downloading from https://sonarqube.us/api/settings/values?component=" + ContextExtension.currentTestName() + "...",
+      "Downloading from https://sonarqube.us/api/settings/values?component=" + testContext.testName() + "...",
       "Cannot download quality profile. Check scanner arguments and the reported URL for more information.",
       "Pre-processing failed. Exit code: 1");
   }
@@ -19,9 +19,7 @@
  */
 package com.sonar.it.scanner.msbuild.sonarcloud;
 
-import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
-import com.sonar.it.scanner.msbuild.utils.ContextExtension;
-import com.sonar.it.scanner.msbuild.utils.OSPlatform;
+import com.sonar.it.scanner.msbuild.utils.ScannerCacheSeeder;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.slf4j.Logger;
@@ -43,8 +41,8 @@ public class CloudTests implements BeforeAllCallback {
       if (!isStarted) {
         if (isFirstTry) {
           isFirstTry = false;
-          // To avoid a race condition in scanner file cache mechanism we analyze single project before any test to populate the cache
-          analyzeEmptyProject();
+          // To avoid a race condition in scanner file cache mechanism we populate the cache before any test
+          ScannerCacheSeeder.forCloud(CloudConstants.SONARCLOUD_URL, CloudConstants.SONARCLOUD_API_URL, System.getenv("SONARCLOUD_PROJECT_TOKEN")).seed(true);
           isStarted = true;
         } else if (!isStarted) {  // The second, third and any other caller should fail fast if something went wrong for the first one
           throw new IllegalStateException("Previous startup failed");
@@ -53,12 +51,6 @@ public class CloudTests implements BeforeAllCallback {
     }
   }
 
-  private void analyzeEmptyProject() {
-    ContextExtension.init("CloudTests.Startup." + Thread.currentThread().getName() + "." + OSPlatform.current().toString());
-    AnalysisContext.forCloud("Empty").runAnalysis();
-    ContextExtension.cleanup();
-  }
-
   private void ensureEnvironment(String name, String value)
   {
     if (value == null) {
@@ -19,15 +19,16 @@
  */
 package com.sonar.it.scanner.msbuild.sonarcloud;
 
+import com.sonar.it.scanner.msbuild.utils.ScannerLog;
+import com.sonar.it.scanner.msbuild.utils.ScannerLogEvent;
 import com.sonar.it.scanner.msbuild.utils.Timeout;
+import com.sonar.orchestrator.build.BuildResult;
 import com.sonar.orchestrator.http.HttpException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,11 +37,10 @@ import static org.awaitility.Awaitility.await;
 public class CloudUtils {
   private final static Logger LOG = LoggerFactory.getLogger(CloudUtils.class);
 
-  public static void waitForTaskProcessing(String logs) {
-    Pattern pattern = Pattern.compile("INFO: More about the report processing at (.*)");
-    Matcher matcher = pattern.matcher(logs);
-    if (matcher.find()) {
-      var uri = URI.create(matcher.group(1));
+  public static void waitForTaskProcessing(BuildResult result) {
+    var taskUrl = ScannerLog.details(result, ScannerLogEvent.Kind.CE_TASK_URL);
+    if (!taskUrl.isEmpty()) {
+      var uri = URI.create(taskUrl.get(0).trim());
       var client = HttpClient.newHttpClient();
       var request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + System.getenv("SONARCLOUD_PROJECT_TOKEN")).build();
 
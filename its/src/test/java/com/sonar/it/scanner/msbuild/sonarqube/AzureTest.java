@@ -23,6 +23,8 @@ import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.AzureDevOps;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.OSPlatform;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -32,17 +34,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class AzureTest {
   @ParameterizedTest
   @ValueSource(strings = {"TF_Build", "tf_build", "tf_BUILD"})
-  void AzureEnvVariables_WrongCase_FailInUnix_SucceedsInWindows(String tfBuild) throws IOException {
+  void AzureEnvVariables_WrongCase_FailInUnix_SucceedsInWindows(String tfBuild, TestContext testContext) throws IOException {
     var sourceDir = Paths.get("src", "path").toAbsolutePath().toString();
-    var sonarConfigFile = generateSonarConfigFile(tfBuild, sourceDir);
+    var sonarConfigFile = generateSonarConfigFile(testContext, tfBuild, sourceDir);
 
     assertThat(Files.exists(sonarConfigFile)).isTrue();
     var content = Files.readString(sonarConfigFile);
@@ -54,16 +55,16 @@ class AzureTest {
   }
 
   @Test
-  void AzureEnvVariables_UpperCase_Succeeds() throws IOException {
+  void AzureEnvVariables_UpperCase_Succeeds(TestContext testContext) throws IOException {
     var sourceDir = Paths.get("src", "path").toAbsolutePath().toString();
-    var sonarConfigFile = generateSonarConfigFile("TF_BUILD", sourceDir);
+    var sonarConfigFile = generateSonarConfigFile(testContext, "TF_BUILD", sourceDir);
 
     assertThat(Files.exists(sonarConfigFile)).isTrue();
     assertThat(Files.readString(sonarConfigFile)).contains("<SourcesDirectory>" + sourceDir + "</SourcesDirectory>");
   }
 
-  private static Path generateSonarConfigFile(String tfBuild, String sourceDir) {
-    var context = AnalysisContext.forServer("Empty");
+  private static Path generateSonarConfigFile(TestContext testContext, String tfBuild, String sourceDir) {
+    var context = AnalysisContext.forServer(testContext, "Empty");
     var agentDir = context.projectDir.resolve("agent").resolve("path").toAbsolutePath();
     var sonarConfigFile = agentDir.resolve(".sonarqube").resolve("conf").resolve("SonarQubeAnalysisConfig.xml");
 
@@ -73,7 +74,7 @@ class AzureTest {
       .setEnvironmentVariable(AzureDevOps.BUILD_SOURCESDIRECTORY, sourceDir)
       .setEnvironmentVariable(AzureDevOps.AGENT_BUILDDIRECTORY, agentDir.toString());
 
-    context.begin.execute(ORCHESTRATOR);
+    context.begin.execute(context.orchestrator);
 
     return sonarConfigFile;
   }
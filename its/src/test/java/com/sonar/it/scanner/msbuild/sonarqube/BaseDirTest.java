@@ -20,8 +20,11 @@
 package com.sonar.it.scanner.msbuild.sonarqube;
 
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
+import com.sonar.it.scanner.msbuild.utils.ComponentWalker;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.it.scanner.msbuild.utils.Timeout;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -31,34 +34,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledOnOs;
 import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.sonarqube.ws.Components;
 import org.sonarqube.ws.Issues;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class BaseDirTest {
 
   @Test
-  void whenProjectIsOutsideExplicitBaseDir_ProjectNotPresent() {
-    var context = AnalysisContext.forServer("CSharpSharedFileWithOneProject");
+  void whenProjectIsOutsideExplicitBaseDir_ProjectNotPresent(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpSharedFileWithOneProject");
     context.begin
       // Common.cs file is outside of this base path and will not be uploaded to SQ
       .setProperty("sonar.projectBaseDir", context.projectDir.resolve("ClassLib1").toAbsolutePath().toString());
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
-      .extracting(Components.Component::getKey)
+    assertThat(ComponentWalker.of(context.orchestrator, context.projectKey).keys())
       .containsExactlyInAnyOrder(context.projectKey + ":Class1.cs"); // Common.cs is not present
   }
 
   @Test
   // Only run on Windows because the concept of drives (e.g., C:\, D:\) does not exist on Unix-based systems.
   @EnabledOnOs(OS.WINDOWS)
-  void whenEachProjectIsOnDifferentDrives_AnalysisFails() {
-    var context = createContextWithoutProjectBasedDir("TwoDrivesTwoProjects");
+  void whenEachProjectIsOnDifferentDrives_AnalysisFails(TestContext testContext) {
+    var context = createContextWithoutProjectBasedDir(testContext, "TwoDrivesTwoProjects");
     try {
       TestUtils.createVirtualDrive("Z:", context.projectDir, "DriveZ");
       var logs = context.runFailedAnalysis().end().getLogs();
@@ -72,8 +72,8 @@ class BaseDirTest {
   @Test
   // Only run on Windows because the concept of drives (e.g., C:\, D:\) does not exist on Unix-based systems.
   @EnabledOnOs(OS.WINDOWS)
-  void whenMajorityOfProjectsIsOnSameDrive_AnalysisSucceeds() {
-    var context = createContextWithoutProjectBasedDir("TwoDrivesThreeProjects");
+  void whenMajorityOfProjectsIsOnSameDrive_AnalysisSucceeds(TestContext testContext) {
+    var context = createContextWithoutProjectBasedDir(testContext, "TwoDrivesThreeProjects");
     try {
       TestUtils.createVirtualDrive("Y:", context.projectDir, "DriveY");
       var logs = context.runAnalysis().end().getLogs();
@@ -83,7 +83,7 @@ class BaseDirTest {
       assertThat(logs).contains("WARNING: File 'Y:\\Subfolder\\Program.cs' is not located under the base directory '" + context.projectDir +
         "' and will not be analyzed.");
       assertThat(logs).contains("File was referenced by the following projects: 'Y:\\Subfolder\\DriveY.csproj'.");
-      assertThat(TestUtils.projectIssues(ORCHESTRATOR, context.projectKey))
+      assertThat(TestUtils.projectIssues(context.orchestrator, context.projectKey))
         .filteredOn(x -> x.getRule().endsWith("S1134"))
         .extracting(Issues.Issue::getRule, Issues.Issue::getComponent)
         .containsExactlyInAnyOrder(
@@ -96,8 +96,8 @@ class BaseDirTest {
   }
 
   @Test
-  void azureFunctions_WithWrongBaseDirectory_AnalysisSucceeds() throws IOException {
-    var context = createContextWithoutProjectBasedDir("ReproAzureFunctions"); // Azure Functions creates auto-generated project in temp as part of the compilation
+  void azureFunctions_WithWrongBaseDirectory_AnalysisSucceeds(TestContext testContext) throws IOException {
+    var context = createContextWithoutProjectBasedDir(testContext, "ReproAzureFunctions"); // Azure Functions creates auto-generated project in temp as part of the compilation
     var temporaryFolderRoot = context.projectDir.getParent().toFile().getCanonicalFile().toString();
     context.build.useDotNet().setTimeout(Timeout.FIVE_MINUTES);
     var logs = context.runAnalysis().end().getLogs();
@@ -106,14 +106,13 @@ class BaseDirTest {
   }
 
   @Test
-  void projectBaseDir_Absolute() {
-    var context = AnalysisContext.forServer("CSharpSharedFileWithOneProject");
+  void projectBaseDir_Absolute(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpSharedFileWithOneProject");
     assertThat(context.projectDir.toString()).doesNotContain("~"); // Scaffolding does .toRealPath to convert it from DOS 8.3 format
     context.begin.setProperty("sonar.projectBaseDir", context.projectDir.toString());
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
-      .extracting(Components.Component::getKey)
+    assertThat(ComponentWalker.of(context.orchestrator, context.projectKey).keys())
       .containsExactlyInAnyOrder(
         context.projectKey + ":Common.cs",
         context.projectKey + ":ClassLib1/Class1.cs"
@@ -124,17 +123,16 @@ class BaseDirTest {
   // We test this on Windows only because the 8.3 format is a Windows convention
   // https://en.wikipedia.org/wiki/8.3_filename
   @EnabledOnOs(OS.WINDOWS)
-  void projectBaseDir_AbsoluteShort() {
+  void projectBaseDir_AbsoluteShort(TestContext testContext) {
     var directoryName = "CSharpSharedFileWithOneProject";
-    var context = AnalysisContext.forServer(directoryName);
+    var context = AnalysisContext.forServer(testContext, directoryName);
     var tempDirectoryName = context.projectDir.getParent().getFileName().toString(); // Something like "junit5-ContextExtension-projectBaseDir_AbsoluteShort-11477225628510485675"
     // Files.temporaryFolderPath returns the same root in 8.3, but only when the name is long (locally). AzureDev Ops CI has a short C:\Windows\TEMP\
     var projectDir83Format = Path.of(Files.temporaryFolderPath(), tempDirectoryName, directoryName);
     context.begin.setProperty("sonar.projectBaseDir", projectDir83Format.toString());
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
-      .extracting(Components.Component::getKey)
+    assertThat(ComponentWalker.of(context.orchestrator, context.projectKey).keys())
       .containsExactlyInAnyOrder(
         context.projectKey + ":Common.cs",
         context.projectKey + ":ClassLib1/Class1.cs"
@@ -142,8 +140,8 @@ class BaseDirTest {
   }
 
   @Test
-  void projectBaseDir_Relative() {
-    var context = AnalysisContext.forServer("CSharpSharedFileWithOneProject");
+  void projectBaseDir_Relative(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpSharedFileWithOneProject");
     // projectDir = "C:\Windows\Temp\junit5-ContextExtension-projectBaseDir_Relative-11477225628510485675\CSharpSharedFileWithOneProject"
     // tempDirectoryName = "junit5-ContextExtension-projectBaseDir_Relative-11477225628510485675"
     // projectBaseDir = "..\.." is relative to the projectDir. That is "C:\Windows\Temp\", so component keys should start with tempDirectoryName.
@@ -152,16 +150,15 @@ class BaseDirTest {
       .setProperty("sonar.projectBaseDir", Paths.get("..", "..").toString());  // Relative from scanner working directory
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
-      .extracting(Components.Component::getKey)
+    assertThat(ComponentWalker.of(context.orchestrator, context.projectKey).keys())
       .containsExactlyInAnyOrder(
         context.projectKey + ":" + tempDirectoryName + "/CSharpSharedFileWithOneProject/Common.cs",
         context.projectKey + ":" + tempDirectoryName + "/CSharpSharedFileWithOneProject/ClassLib1/Class1.cs"
       );
   }
 
-  private AnalysisContext createContextWithoutProjectBasedDir(String directoryName) {
-    var context = AnalysisContext.forServer(directoryName);
+  private AnalysisContext createContextWithoutProjectBasedDir(TestContext testContext, String directoryName) {
+    var context = AnalysisContext.forServer(testContext, directoryName);
     context.begin
       .setProperty("sonar.projectBaseDir", null)  // Do NOT set "sonar.projectBaseDir" for this test. We need to remove the default value
       .setDebugLogs();
@@ -31,18 +31,19 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
+import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.orchestrator;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
+@TestWeight(2)
 class CodeCoverageTest {
 
   @Test
-  void whenRunningOutsideAzureDevops_coverageIsNotImported() {
+  void whenRunningOutsideAzureDevops_coverageIsNotImported(TestContext testContext) {
     try (var buildDirectory = new TempDirectory("junit-CodeCoverage.BuildDirectory.Local-")) {
-      var logs = createContextWithCoverage(buildDirectory, ScannerClassifier.NET).runAnalysis().end().getLogs();
+      var logs = createContextWithCoverage(testContext, buildDirectory, ScannerClassifier.NET).runAnalysis().end().getLogs();
 
-      if (ORCHESTRATOR.getServer().version().isGreaterThan(9, 9)) {
+      if (orchestrator(testContext).getServer().version().isGreaterThan(9, 9)) {
         assertThat(logs).contains(
           "'C# Tests Coverage Report Import' skipped because of missing configuration requirements.",
           "Accessed configuration:",
@@ -58,11 +59,11 @@ class CodeCoverageTest {
 
   @Test
   @EnabledOnOs(OS.WINDOWS)
-  void whenRunningOnAzureDevops_coverageIsImported() {
+  void whenRunningOnAzureDevops_coverageIsImported(TestContext testContext) {
     // This test concerns only the .NET framework scanner flavor.
     // The coverage report needs to be converted from a binary format to xml, and this is supported only in Azure Devops on Windows.
     try (var buildDirectory = new TempDirectory("junit-CodeCoverage.BuildDirectory.Local-")) {  // Simulate different build directory on Azure DevOps
-      var context = createContextWithCoverage(buildDirectory, ScannerClassifier.NET_FRAMEWORK);
+      var context = createContextWithCoverage(testContext, buildDirectory, ScannerClassifier.NET_FRAMEWORK);
       // Simulate Azure Devops: SonarQube.Integration.ImportBefore.targets determines paths based on these environment variables.
       var logs = context
         .setEnvironmentVariable(AzureDevOps.TF_BUILD, "true")             // Simulate Azure Devops CI environment
@@ -77,7 +78,7 @@ class CodeCoverageTest {
       assertThat(logs).containsPattern("Converting coverage file '.*.coverage' to '.*.coveragexml'.");
       assertThat(logs).containsPattern("Parsing the Visual Studio coverage XML report .*coveragexml");
       assertThat(logs).contains("Coverage Report Statistics: 2 files, 1 main files, 1 main files with coverage, 1 test files, 0 project excluded files, 0 other language files.");
-      if (ORCHESTRATOR.getServer().version().isGreaterThanOrEquals(2025, 3)) {
+      if (context.orchestrator.getServer().version().isGreaterThanOrEquals(2025, 3)) {
         assertThat(logs).containsPattern("Adding metric: dotnetenterprise\\.s4net\\.endstep\\.coverage_conversion=true");
       }
     }
@@ -85,11 +86,11 @@ class CodeCoverageTest {
 
   @Test
   @EnabledOnOs(OS.WINDOWS)
-  void whenRunningWithMtpOnAzureDevops_coverageIsImported() {
+  void whenRunningWithMtpOnAzureDevops_coverageIsImported(TestContext testContext) {
     // MTP uses --report-trx and --coverage instead of --collect "Code Coverage" --logger trx.
     // The resulting TRX contains a different collector URI that TrxFileReader must also recognize.
     try (var buildDirectory = new TempDirectory("junit-CodeCoverage.BuildDirectory.MTP-")) {
-      var context = AnalysisContext.forServer("CodeCoverage.MicrosoftTestingPlatform", ScannerClassifier.NET_FRAMEWORK);
+      var context = AnalysisContext.forServer(testContext, "CodeCoverage.MicrosoftTestingPlatform", ScannerClassifier.NET_FRAMEWORK);
       context.begin.setDebugLogs();
       context.build.useDotNet("test")
         .skipExtraArgs() // MTP forwards unrecognized args to the test executable, which rejects --warnaserror and --disable-build-servers
@@ -111,15 +112,15 @@ class CodeCoverageTest {
   }
 
   @Test
-  void dotCover_CoverageDirectoryIsNotImported() {
-    var context = AnalysisContext.forServer("DotCoverExcludedCoverage");
+  void dotCover_CoverageDirectoryIsNotImported(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "DotCoverExcludedCoverage");
     context.begin
       .setProperty("sonar.cs.dotcover.reportsPaths", "dotCover.Output.html")
       .setDebugLogs();
     context.build.useDotNet();
     context.runAnalysis();
 
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues).filteredOn(x -> x.getRule().startsWith("csharpsquid")).isNotEmpty();
     assertThat(issues).extracting(x -> x.getComponent())
       .noneMatch(c -> c.contains("dotCover.Output"));
@@ -154,12 +155,13 @@ class CodeCoverageTest {
     String serverCoverageReportPath,
     String localExclusions,
     String serverExclusions,
-    boolean isFileExcluded) {
-    var context = AnalysisContext.forServer("ExclusionsAndCoverage");
+    boolean isFileExcluded,
+    TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExclusionsAndCoverage");
     context.begin.setDebugLogs();
     context.build.useDotNet().setTimeout(Timeout.TWO_MINUTES);
     context.end.setTimeout(Timeout.TWO_MINUTES);
-    ORCHESTRATOR.getServer().provisionProject(context.projectKey, context.projectKey);
+    context.orchestrator.getServer().provisionProject(context.projectKey, context.projectKey);
 
     if (!localExclusions.isEmpty()) // You cannot provide an empty /d:sonar.exclusions="" argument
     {
@@ -169,14 +171,14 @@ class CodeCoverageTest {
       context.begin.setProperty("sonar.cs.vscoveragexml.reportsPaths", localCoverageReportPath);
     }
     if (!serverExclusions.isEmpty()) {
-      TestUtils.updateSetting(ORCHESTRATOR, context.projectKey, "sonar.exclusions", List.of(serverExclusions));
+      TestUtils.updateSetting(context.orchestrator, context.projectKey, "sonar.exclusions", List.of(serverExclusions));
     }
     if (!serverCoverageReportPath.isEmpty()) {
-      TestUtils.updateSetting(ORCHESTRATOR, context.projectKey, "sonar.cs.vscoveragexml.reportsPaths", List.of(serverCoverageReportPath));
+      TestUtils.updateSetting(context.orchestrator, context.projectKey, "sonar.cs.vscoveragexml.reportsPaths", List.of(serverCoverageReportPath));
     }
     context.runAnalysis();
 
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     if (isFileExcluded) {
       assertThat(issues).extracting(x -> x.getComponent())
         .contains(context.projectKey + ":ExclusionsAndCoverage/Calculator.cs")
@@ -189,8 +191,8 @@ class CodeCoverageTest {
     }
   }
 
-  private AnalysisContext createContextWithCoverage(TempDirectory buildDirectory, ScannerClassifier classifier) {
-    var context = AnalysisContext.forServer("CodeCoverage", classifier);
+  private AnalysisContext createContextWithCoverage(TestContext testContext, TempDirectory buildDirectory, ScannerClassifier classifier) {
+    var context = AnalysisContext.forServer(testContext, "CodeCoverage", classifier);
     context.begin.setDebugLogs(); // For assertions
     // --collect "Code Coverage" parameter produces a binary coverage file ".coverage" that needs to be converted to an XML ".coveragexml" file by the end step
     context.build.useDotNet("test")
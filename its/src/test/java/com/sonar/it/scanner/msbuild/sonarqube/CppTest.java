@@ -24,9 +24,13 @@ import com.sonar.it.scanner.msbuild.utils.BuildCommand;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.DisableOnEdition;
 import com.sonar.it.scanner.msbuild.utils.GeneralCommand;
+import com.sonar.it.scanner.msbuild.utils.MeasureSnapshot;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
 import com.sonar.it.scanner.msbuild.utils.TempDirectory;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeight;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.it.scanner.msbuild.utils.Workload;
 import com.sonar.it.scanner.msbuild.utils.WorkloadPrerequisite;
 import com.sonar.orchestrator.build.BuildResult;
@@ -44,26 +48,27 @@ import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.failureDescription;
 
 /**
  * Only cpp, without C# plugin
  */
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 @EnabledOnOs(OS.WINDOWS)
 @WorkloadPrerequisite(Workload.VC_TOOLS)
+@TestWeight(2)
 class CppTest {
 
   @Test
   @DisableOnEdition(Edition.COMMUNITY)
-  void cppOnly() throws Exception {
-    var context = AnalysisContext.forServer("CppSolution").setQualityProfile(QualityProfile.CPP_S106);
+  void cppOnly(TestContext testContext) throws Exception {
+    var context = AnalysisContext.forServer(testContext, "CppSolution").setQualityProfile(QualityProfile.CPP_S106);
     File wrapperOutDir = new File(context.projectDir.toFile(), "out");
     var beginResult = context.begin
       .setProperty("sonar.cfamily.build-wrapper-output", wrapperOutDir.toString())
-      .execute(ORCHESTRATOR);
-    assertThat(beginResult.isSuccess()).describedAs("C++ begin step failed with logs %n%s", beginResult.getLogs()).isTrue();
+      .execute(context.orchestrator);
+    assertThat(beginResult.isSuccess()).describedAs(failureDescription("C++ begin step failed.", beginResult)).isTrue();
 
     String platformToolset = System.getProperty("msbuild.platformtoolset", "v140");
     String windowsSdk = System.getProperty("msbuild.windowssdk", "10.0.18362.0");
@@ -72,26 +77,27 @@ class CppTest {
         wrapperOutDir, "/t:Rebuild",
         String.format("/p:WindowsTargetPlatformVersion=%s", windowsSdk),
         String.format("/p:PlatformToolset=%s", platformToolset));
-      BuildResult result = context.end.execute(ORCHESTRATOR);
+      BuildResult result = context.end.execute(context.orchestrator);
       assertThat(result.isSuccess()).as(result.getLogs()).isTrue();
       assertThat(result.getLogs()).doesNotContain("Invalid character encountered in file");
 
-      List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+      List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
       assertThat(issues).extracting(Issue::getRule).containsAll(List.of("cpp:S106"));
-      assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(15);
-      assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":ConsoleApp/ConsoleApp.cpp", "ncloc", ORCHESTRATOR)).isEqualTo(8);
+      var measures = MeasureSnapshot.of(context.orchestrator, context.projectKey, "ncloc");
+      assertThat(measures.getInteger(context.projectKey, "ncloc")).isEqualTo(15);
+      assertThat(measures.getInteger(context.projectKey + ":ConsoleApp/ConsoleApp.cpp", "ncloc")).isEqualTo(8);
     }
   }
 
   @Test
   @DisableOnEdition(Edition.COMMUNITY)
-  void cppWithSharedFiles() throws Exception {
-    var context = AnalysisContext.forServer("CppSharedFiles").setQualityProfile(QualityProfile.CPP_S106);
+  void cppWithSharedFiles(TestContext testContext) throws Exception {
+    var context = AnalysisContext.forServer(testContext, "CppSharedFiles").setQualityProfile(QualityProfile.CPP_S106);
     File wrapperOutDir = new File(context.projectDir.toFile(), "out");
     var beginResult = context.begin
       .setProperty("sonar.cfamily.build-wrapper-output", wrapperOutDir.toString())
-      .execute(ORCHESTRATOR);
-    assertThat(beginResult.isSuccess()).describedAs("C++ begin step failed with logs %n%s", beginResult.getLogs()).isTrue();
+      .execute(context.orchestrator);
+    assertThat(beginResult.isSuccess()).describedAs(failureDescription("C++ begin step failed.", beginResult)).isTrue();
 
     String platformToolset = System.getProperty("msbuild.platformtoolset", "v140");
     String windowsSdk = System.getProperty("msbuild.windowssdk", "10.0.18362.0");
@@ -101,21 +107,22 @@ class CppTest {
         String.format("/p:WindowsTargetPlatformVersion=%s", windowsSdk),
         String.format("/p:PlatformToolset=%s", platformToolset));
 
-      BuildResult result = context.end.execute(ORCHESTRATOR);
+      BuildResult result = context.end.execute(context.orchestrator);
       assertThat(result.isSuccess()).as(result.getLogs()).isTrue();
       assertThat(result.getLogs()).doesNotContain("Invalid character encountered in file");
 
-      List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+      List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
       assertThat(issues).extracting(Issue::getRule).containsAll(List.of("cpp:S106"));
-      assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(22);
-      assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":Project1/Project1.cpp", "ncloc", ORCHESTRATOR)).isEqualTo(8);
+      var measures = MeasureSnapshot.of(context.orchestrator, context.projectKey, "ncloc");
+      assertThat(measures.getInteger(context.projectKey, "ncloc")).isEqualTo(22);
+      assertThat(measures.getInteger(context.projectKey + ":Project1/Project1.cpp", "ncloc")).isEqualTo(8);
     }
   }
 
   private static TempDirectory getBuildWrapperDir(AnalysisContext context) throws IOException {
     File buildWrapperZip = new File(context.projectDir.toString(), "build-wrapper-win-x86.zip");
     var buildWrapperDir = new TempDirectory("cpp-build-wrapper");
-    FileUtils.copyURLToFile(new URL(ORCHESTRATOR.getServer().getUrl() + "/static/cpp/build-wrapper-win-x86.zip"), buildWrapperZip);
+    FileUtils.copyURLToFile(new URL(context.orchestrator.getServer().getUrl() + "/static/cpp/build-wrapper-win-x86.zip"), buildWrapperZip);
     ZipUtils.unzip(buildWrapperZip, buildWrapperDir.path.toFile());
     return buildWrapperDir;
   }
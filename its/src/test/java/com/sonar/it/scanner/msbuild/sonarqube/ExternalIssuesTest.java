@@ -24,7 +24,9 @@ import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.MSBuildMinVersion;
 import com.sonar.it.scanner.msbuild.utils.OSPlatform;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,22 +34,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ExternalIssuesTest {
 
   @Test
-  void externalIssues_VB() {
-    var context = AnalysisContext.forServer("ExternalIssues.VB").setQualityProfile(QualityProfile.VB_S3385_S125);
+  void externalIssues_VB(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExternalIssues.VB").setQualityProfile(QualityProfile.VB_S3385_S125);
     // Linux and MacOS images do not have .NET 4.8 so we test with NET 9.
     // On Windows we want this test to also work with MSBuild15 and MSBuild16 so we need to keep .NET 4.8 there.
     context.build.addArgument(OSPlatform.isWindows() ? "ExternalIssues.VB.vbproj" : "ExternalIssues.VB.NET9.vbproj");
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     List<String> ruleKeys = issues.stream().map(Issue::getRule).collect(Collectors.toList());
     // The same set of Sonar issues should be reported, regardless of whether external issues are imported or not
 
@@ -55,14 +56,14 @@ class ExternalIssuesTest {
   }
 
   @Test
-  void externalIssues_CS() {
-    var context = AnalysisContext.forServer("ExternalIssues.CS").setQualityProfile(QualityProfile.CS_S1134_S125);
+  void externalIssues_CS(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExternalIssues.CS").setQualityProfile(QualityProfile.CS_S1134_S125);
     // Linux and MacOS images do not have .NET 4.8 so we test with NET 9.
     // On Windows we want this test to also work with MSBuild15 and MSBuild16 so we need to keep .NET 4.8 there.
     context.build.addArgument(OSPlatform.isWindows() ? "ExternalIssues.CS.csproj" : "ExternalIssues.CS.NET9.csproj");
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     List<String> ruleKeys = issues.stream().map(Issue::getRule).collect(Collectors.toList());
 
     // The same set of Sonar issues should be reported, regardless of whether external issues are imported or not
@@ -79,12 +80,13 @@ class ExternalIssuesTest {
 
   @Test
   @MSBuildMinVersion(17)
-  void ignoreIssues_DoesNotRemoveSourceGenerator() {
-    var context = AnalysisContext.forServer("IgnoreIssuesDoesNotRemoveSourceGenerator");
+  void ignoreIssues_DoesNotRemoveSourceGenerator(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "IgnoreIssuesDoesNotRemoveSourceGenerator");
     context.begin.setProperty("sonar.cs.roslyn.ignoreIssues", "true");
+    context.build.withColdBuildServers();
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues)
       .extracting(Issue::getRule, Issue::getComponent)
       .containsExactlyInAnyOrder(
@@ -21,7 +21,9 @@ package com.sonar.it.scanner.msbuild.sonarqube;
 
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Components;
@@ -29,13 +31,13 @@ import org.sonarqube.ws.Issues.Issue;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class FileBasedAppTest {
 
   @Test
   // File-based apps (https://learn.microsoft.com/en-us/dotnet/core/sdk/file-based-apps)
-  void fileBasedApp_IsAnalyzed() {
-    var context = AnalysisContext.forServer("FileBasedApp");
+  void fileBasedApp_IsAnalyzed(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "FileBasedApp");
     // dotnet CLI only recognizes "file-based app" mode when the entry file name is the sole build argument.
     // skipExtraArgs() also drops the --disable-build-servers switch that BuildCommand normally appends to every due to
     // https://github.com/SonarSource/sonar-scanner-msbuild/issues/1122. MSBUILDDISABLENODEREUSE=1 below replaces it.
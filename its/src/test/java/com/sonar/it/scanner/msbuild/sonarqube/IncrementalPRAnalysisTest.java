@@ -21,8 +21,11 @@ package com.sonar.it.scanner.msbuild.sonarqube;
 
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.FixtureMaterializer;
 import com.sonar.it.scanner.msbuild.utils.ServerMinVersion;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.orchestrator.http.HttpException;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -35,29 +38,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonarqube.ws.client.analysiscache.GetRequest;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class IncrementalPRAnalysisTest {
   final static Logger LOG = LoggerFactory.getLogger(IncrementalPRAnalysisTest.class);
 
   @Test
-  void noCache_DoesNotProduceUnchangedFiles() {
-    var context = AnalysisContext.forServer("IncrementalPRAnalysis");
+  void noCache_DoesNotProduceUnchangedFiles(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "IncrementalPRAnalysis");
     var unexpectedUnchangedFiles = context.projectDir.resolve(Paths.get(".sonarqube", "conf", "UnchangedFiles.txt"));
     var result = context.begin
       .setDebugLogs() // To assert debug logs too
       .setProperty("sonar.pullrequest.base", "base-branch")
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
 
     assertTrue(result.isSuccess());
     assertThat(unexpectedUnchangedFiles).doesNotExist();
     assertThat(result.getLogs()).contains("Processing analysis cache");
 
-    if (ORCHESTRATOR.getServer().version().isGreaterThanOrEquals(9, 9)) {
+    if (context.orchestrator.getServer().version().isGreaterThanOrEquals(9, 9)) {
       assertThat(result.getLogs()).contains("Cache data is empty. A full analysis will be performed.");
     } else {
       assertThat(result.getLogs()).contains("Incremental PR analysis is available starting with SonarQube 9.9 or later.");
@@ -67,17 +69,19 @@ class IncrementalPRAnalysisTest {
   @Test
   // Public cache API was introduced in 9.9
   @ServerMinVersion("9.9")
-  void withCache_ProducesUnchangedFiles() throws IOException {
-    var context = AnalysisContext.forServer("IncrementalPRAnalysis");
-    String baseBranch = TestUtils.getDefaultBranchName(ORCHESTRATOR);
+  void withCache_ProducesUnchangedFiles(TestContext testContext) throws IOException {
+    var context = AnalysisContext.forServer(testContext, "IncrementalPRAnalysis");
+    String baseBranch = TestUtils.getDefaultBranchName(context.orchestrator);
     context.runAnalysis();  // First analysis to populate the cache
-    waitForCacheInitialization(context.projectKey, baseBranch);
+    waitForCacheInitialization(context, baseBranch);
 
-    Files.writeString(context.projectDir.resolve(Paths.get("IncrementalPRAnalysis", "WithChanges.cs")), " // File modification", StandardOpenOption.APPEND);
+    var changedFile = context.projectDir.resolve(Paths.get("IncrementalPRAnalysis", "WithChanges.cs"));
+    FixtureMaterializer.breakLink(changedFile);
+    Files.writeString(changedFile, " // File modification", StandardOpenOption.APPEND);
     var result = context.begin
       .setDebugLogs() // To assert debug logs too
       .setProperty("sonar.pullrequest.base", baseBranch)
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
 
     assertTrue(result.isSuccess());
     assertThat(result.getLogs()).contains("Processing analysis cache");
@@ -92,13 +96,13 @@ class IncrementalPRAnalysisTest {
       .doesNotContain("WithChanges.cs"); // Was modified
   }
 
-  private void waitForCacheInitialization(String projectKey, String baseBranch) {
+  private void waitForCacheInitialization(AnalysisContext context, String baseBranch) {
     await()
       .pollInterval(Duration.ofSeconds(1))
       .atMost(Duration.ofSeconds(120))
       .until(() -> {
         try {
-          TestUtils.newWsClient(ORCHESTRATOR).analysisCache().get(new GetRequest().setProject(projectKey).setBranch(baseBranch)).close();
+          TestUtils.newWsClient(context.orchestrator).analysisCache().get(new GetRequest().setProject(context.projectKey).setBranch(baseBranch)).close();
           return true;
         } catch (HttpException ex) {
           return false; // if the `analysisCache().get()` method is not successful it throws HttpException
@@ -25,7 +25,10 @@ import com.sonar.it.scanner.msbuild.utils.DisableOnEdition;
 import com.sonar.it.scanner.msbuild.utils.MSBuildMinVersion;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
 import com.sonar.it.scanner.msbuild.utils.ServerMinVersion;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeight;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.it.scanner.msbuild.utils.Timeout;
 import com.sonar.orchestrator.container.Edition;
 import java.nio.file.Path;
@@ -38,31 +41,31 @@ import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
+@TestWeight(3)
 class MultiLanguageTest {
 
   @Test
   // SonarQube 10.8 changed the way the numbers are reported. To keep the test simple we only run the test on the latest versions.
   @ServerMinVersion("10.8")
-  void bothRoslynLanguages() {
-    var context = AnalysisContext.forServer("ConsoleMultiLanguage")
+  void bothRoslynLanguages(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ConsoleMultiLanguage")
       .setQualityProfile(QualityProfile.CS_S1134)
       .setQualityProfile(QualityProfile.VB_S3385_S2358);
     context.begin.setProperty("sonar.scm.disabled", "false");
     // Without the .git folder the scanner would pick up file that are ignored in the .gitignore resulting in an incorrect number of lines of code.
     try (var ignored = new CreateGitFolder(context.projectDir)) {
       context.runAnalysis();
-      var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+      var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
       assertLanguageExists(issues, "vbnet");
       assertLanguageExists(issues, "csharpsquid");
 
       // Program.cs 30
       // Module1.vb 10
       // App.config +6 (Reported by Xml plugin)
-      assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(46);
+      assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isEqualTo(46);
     }
   }
 
@@ -73,35 +76,35 @@ class MultiLanguageTest {
   // This test is not supported on versions older than Visual Studio 2026
   @MSBuildMinVersion(18)
   @DisableOnEdition(Edition.COMMUNITY)
-  void esprojVueWithBackend() {
+  void esprojVueWithBackend(TestContext testContext) {
     // For this test also the .vscode folder has been included in the project folder:
     // https://developercommunity.visualstudio.com/t/visual-studio-2022-freezes-when-opening-esproj-fil/1581344
-    var context = AnalysisContext.forServer("VueWithAspBackend");
+    var context = AnalysisContext.forServer(testContext, "VueWithAspBackend");
     context.begin.CreateAndSetUserHomeFolder("junit-esproj-vue-");
     context.build.setTimeout(Timeout.FIVE_MINUTES);  // Longer timeout because of npm install
     context.end.setTimeout(Timeout.FIVE_MINUTES);    // End step was timing out, JS is slow
-    ORCHESTRATOR.getServer().provisionProject(context.projectKey, context.projectKey);
+    context.orchestrator.getServer().provisionProject(context.projectKey, context.projectKey);
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertLanguageExists(issues, "csharpsquid");
     assertLanguageExists(issues, "javascript");
     assertLanguageExists(issues, "typescript");
     assertLanguageExists(issues, "php");
     assertLanguageExists(issues, "python");
     // Different expected values are for different SQ and MsBuild versions and local run
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "lines", ORCHESTRATOR)).isGreaterThan(300);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isGreaterThan(200);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "files", ORCHESTRATOR)).isGreaterThanOrEqualTo(9);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "lines", context.orchestrator)).isGreaterThan(300);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isGreaterThan(200);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "files", context.orchestrator)).isGreaterThanOrEqualTo(9);
   }
 
   @Test
   // new SDK-style format was introduced with .NET Core, we can't run .NET Core SDK under VS 2017 CI context
   @MSBuildMinVersion(16)
   @DisableOnEdition(Edition.COMMUNITY)
-  void sdkFormat() {
-    var context = AnalysisContext.forServer("MultiLanguageSupport");
-    var version = ORCHESTRATOR.getServer().version();
+  void sdkFormat(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "MultiLanguageSupport");
+    var version = context.orchestrator.getServer().version();
     context.begin.setDebugLogs();
     context.begin.CreateAndSetUserHomeFolder("junit-sdkFormat-");
     // Begin step runs in MultiLanguageSupport
@@ -114,7 +117,7 @@ class MultiLanguageTest {
       git.commitAll();
       var logs = context.runAnalysis().end().getLogs();
 
-      var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+      var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
       assertLanguageExists(issues, "csharpsquid");
       assertLanguageExists(issues, "javascript");
       assertLanguageExists(issues, "plsql");
@@ -171,15 +174,15 @@ class MultiLanguageTest {
   @Test
   // .Net 7 is supported by VS 2022 and above
   @MSBuildMinVersion(17)
-  void react() {
-    var context = AnalysisContext.forServer("MultiLanguageSupportReact");
+  void react(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "MultiLanguageSupportReact");
     context.begin.CreateAndSetUserHomeFolder("junit-react-");
     context.build.setTimeout(Timeout.TEN_MINUTES);   // Longer timeout because of npm install
     context.end.setTimeout(Timeout.TWENTY_MINUTES);  // End step is timing out on macOS, JS analysis is slow - see SCAN4NET-1144
     context.runAnalysis();
 
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
-    var version = ORCHESTRATOR.getServer().version();
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
+    var version = context.orchestrator.getServer().version();
     assertLanguageExists(issues, "csharpsquid");
     assertLanguageExists(issues, "javascript");
     if (version.isGreaterThan(8, 9)) {
@@ -192,15 +195,15 @@ class MultiLanguageTest {
   // .Net 7 is supported by VS 2022 and above
   @MSBuildMinVersion(17)
   @DisableOnEdition(Edition.COMMUNITY)
-  void angular() {
-    var context = AnalysisContext.forServer("MultiLanguageSupportAngular");
+  void angular(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "MultiLanguageSupportAngular");
     context.begin.CreateAndSetUserHomeFolder("junit-angular-");
     context.build.setTimeout(Timeout.TEN_MINUTES);  // Longer timeout because of npm install
     context.end.setTimeout(Timeout.TEN_MINUTES);    // End step was timing out, JS is slow
     context.runAnalysis();
 
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
-    var version = ORCHESTRATOR.getServer().version();
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
+    var version = context.orchestrator.getServer().version();
     assertLanguageExists(issues, "csharpsquid");
     assertLanguageExists(issues, "javascript");
     assertLanguageExists(issues, "python");
@@ -225,12 +228,12 @@ class MultiLanguageTest {
   @ServerMinVersion("10.0")
   @EnabledOnOs(OS.WINDOWS)
   @DisableOnEdition(Edition.COMMUNITY)
-  void nonSdkFormat() {
-    var context = AnalysisContext.forServer("MultiLanguageSupportNonSdk");
+  void nonSdkFormat(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "MultiLanguageSupportNonSdk");
     context.begin.CreateAndSetUserHomeFolder("junit-nonSdkFormat-");
     context.runAnalysis();
 
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertLanguageExists(issues, "csharpsquid");
     assertLanguageExists(issues, "javascript");
     assertLanguageExists(issues, "plsql");
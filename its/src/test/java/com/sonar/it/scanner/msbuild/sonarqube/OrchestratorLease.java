@@ -0,0 +1,70 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.orchestrator.Orchestrator;
+
+// Server of the pool leased by a test class. It is started on its first use, so test classes and filtered runs that never talk to it do not pay for its startup.
+public class OrchestratorLease {
+
+  private final OrchestratorState state;
+  private boolean isStarted;
+  private RuntimeException startupFailure;
+
+  public OrchestratorLease(OrchestratorState state) {
+    this.state = state;
+  }
+
+  public Orchestrator orchestrator() {
+    return startOnce().orchestrator();
+  }
+
+  public String token() {
+    return startOnce().token();
+  }
+
+  public OrchestratorState state() {
+    return state;
+  }
+
+  public synchronized void stopOnce() {
+    if (isStarted) {
+      isStarted = false;
+      startupFailure = null;
+      state.stopOnce();
+    }
+  }
+
+  private synchronized OrchestratorState startOnce() {
+    if (startupFailure != null) {  // The following tests of the class should fail fast if something went wrong for the first one
+      throw new IllegalStateException("Previous OrchestratorLease startup failed", startupFailure);
+    }
+    if (!isStarted) {
+      isStarted = true;  // OrchestratorState counts also the failed starts, stopOnce needs to be called for them too
+      try {
+        state.startOnce();
+      } catch (RuntimeException ex) {
+        startupFailure = ex;
+        throw ex;
+      }
+    }
+    return state;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Several independent SonarQube instances, each with its own Compute Engine queue.
+// Test classes lease one instance for their whole lifetime, so analyses from concurrently running classes are spread over the pool instead of being serialized by a single CE queue.
+public class OrchestratorPool {
+
+  private final List<OrchestratorState> states = new ArrayList<>();
+  private final int[] leases;
+
+  public OrchestratorPool(int size, Supplier<Orchestrator> factory) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Orchestrator pool size must be at least 1, but was " + size);
+    }
+    for (var i = 0; i < size; i++) {
+      states.add(new OrchestratorState(factory));
+    }
+    leases = new int[size];
+  }
+
+  public int size() {
+    return states.size();
+  }
+
+  // The least used instance is leased, so the load is balanced across the pool. The lowest index wins the tie, so a pool of one behaves as a single shared server.
+  public synchronized OrchestratorState lease() {
+    var index = 0;
+    for (var i = 1; i < leases.length; i++) {
+      if (leases[i] < leases[index]) {
+        index = i;
+      }
+    }
+    leases[index] += 1;
+    return states.get(index);
+  }
+
+  public synchronized void release(OrchestratorState state) {
+    var index = states.indexOf(state);
+    if (index < 0 || leases[index] == 0) {
+      throw new IllegalStateException("OrchestratorState was not leased from this pool.");
+    }
+    leases[index] -= 1;
+  }
+
+  public OrchestratorState stateOf(Orchestrator orchestrator) {
+    return states.stream()
+      .filter(x -> x.owns(orchestrator))
+      .findFirst()
+      .orElseThrow(() -> new IllegalStateException("Orchestrator is not part of this pool."));
+  }
+}
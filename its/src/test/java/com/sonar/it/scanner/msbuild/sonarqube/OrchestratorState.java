@@ -19,46 +19,62 @@
  */
 package com.sonar.it.scanner.msbuild.sonarqube;
 
-import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
-import com.sonar.it.scanner.msbuild.utils.ContextExtension;
-import com.sonar.it.scanner.msbuild.utils.QualityProfile;
-import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
+import com.sonar.it.scanner.msbuild.utils.ScannerCacheSeeder;
+import com.sonar.it.scanner.msbuild.utils.WsClients;
 import com.sonar.orchestrator.Orchestrator;
-import com.sonar.orchestrator.locator.FileLocation;
-import org.sonarqube.ws.client.HttpConnector;
-import org.sonarqube.ws.client.WsClientFactories;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonarqube.ws.client.WsClient;
 import org.sonarqube.ws.client.usertokens.GenerateRequest;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
-
+// The orchestrator is created on the first startOnce(), so plugins are resolved and downloaded only for servers that are actually used.
 public class OrchestratorState {
 
-  private final Orchestrator orchestrator;
+  private static final Logger LOG = LoggerFactory.getLogger(OrchestratorState.class);
+
+  private final Supplier<Orchestrator> factory;
+  private Orchestrator orchestrator;
   private volatile int usageCount;
   private volatile boolean isStarted;
   private String token;
 
-  public OrchestratorState(Orchestrator orchestrator) {
-    this.orchestrator = orchestrator;
+  public OrchestratorState(Supplier<Orchestrator> factory) {
+    this.factory = factory;
   }
 
+  // Orchestrator.start() installs the distribution again, that would wipe a restored snapshot. The server is installed once and then only started.
   public void startOnce() {
-    synchronized (OrchestratorState.class) {
+    synchronized (this) {
       usageCount += 1;
       if (usageCount == 1) {
-        orchestrator.start();
-        for (var profile : QualityProfile.allProfiles()) {
-          orchestrator.getServer().restoreProfile(FileLocation.of(String.format("qualityProfiles/%s.xml", profile)));
+        if (orchestrator == null) {
+          orchestrator = factory.get();
+          orchestrator.install();
+          var snapshot = ServerSnapshot.of(orchestrator, ServerTests.pluginSha256ByFileName());
+          if (snapshot.isPresent() && snapshot.get().exists()) {
+            token = snapshot.get().restore();  // The token is already in the restored database
+            orchestrator.startServer();
+            ensureValidToken();
+            new QualityProfileRestorer(orchestrator, adminClient()).restoreAll();  // Only profiles modified since the snapshot was taken are restored
+            seedScannerCache();
+          } else {
+            orchestrator.startServer();
+            new QualityProfileRestorer(orchestrator, adminClient()).restoreAll();
+            token = generateToken();
+            seedScannerCache();
+            if (snapshot.isPresent()) {
+              orchestrator.stop();  // The database files need to be consistent before they are copied
+              snapshot.get().save(token);
+              orchestrator.startServer();
+              ensureValidToken();
+            }
+          }
+        } else {
+          orchestrator.startServer();  // Restarted after stopOnce(), the data directory is kept
+          ensureValidToken();
         }
-
-        token = WsClientFactories.getDefault().newClient(HttpConnector.newBuilder().url(orchestrator.getServer().getUrl()).credentials("admin", "admin").build())
-          .userTokens()
-          .generate(new GenerateRequest().setName("ITs"))
-          .getToken();
-        // To avoid a race condition in scanner file cache mechanism we analyze single project before any test to populate the cache
-        analyzeEmptyProject();
-        // To avoid a race condition in the scanner-cli cache — the standalone sonar-scanner CLI's own FileCache/JarDownloader. Used only when sonar.scanner.useSonarScannerCLI=true is set.
-        analyzeEmptyProjectWithScannerCli();
         isStarted = true;
       } else if (!isStarted) {  // The second, third and any other caller should fail fast if something went wrong for the first one
         throw new IllegalStateException("Previous OrchestratorState startup failed");
@@ -67,15 +83,27 @@ public class OrchestratorState {
   }
 
   public void stopOnce() {
-    synchronized (OrchestratorState.class) {
+    synchronized (this) {
       usageCount -= 1;
-      if (usageCount == 0) {
+      if (usageCount == 0 && orchestrator != null) {
         orchestrator.stop();
         isStarted = false;
       }
     }
   }
 
+  public synchronized Orchestrator orchestrator() {
+    if (orchestrator == null) {
+      throw new IllegalStateException("OrchestratorState was not started and the orchestrator is not created yet.");
+    }
+    return orchestrator;
+  }
+
+  // Does not create the orchestrator
+  public synchronized boolean owns(Orchestrator candidate) {
+    return orchestrator != null && orchestrator == candidate;
+  }
+
   public String token() {
     if (token == null) {
       throw new RuntimeException("OrchestratorState was not started and token is not available yet.");
@@ -83,23 +111,29 @@ public class OrchestratorState {
     return token;
   }
 
-  private void analyzeEmptyProject() {
-    ContextExtension.init("OrchestratorState.Startup." + Thread.currentThread().getName());
-    var result = AnalysisContext.forServer("Empty").runAnalysis();
-    assertTrue(result.begin().isSuccess(), "Orchestrator warmup failed - begin step");
-    assertTrue(result.build().isSuccess(), "Orchestrator warmup failed - build");
-    assertTrue(result.end().isSuccess(), "Orchestrator warmup failed - end step");
-    ContextExtension.cleanup();
+  // A token that does not survive a restart or a snapshot restore is replaced, so tests never run with a dead one
+  private void ensureValidToken() {
+    var valid = WsClients.forToken(orchestrator.getServer().getUrl(), token).authentication().validate().getValid();
+    if (!valid) {
+      LOG.warn("The ITs token is not valid after the server start, generating a new one");
+      token = generateToken();
+    }
+  }
+
+  private String generateToken() {
+    return adminClient()
+      .userTokens()
+      .generate(new GenerateRequest().setName("ITs-" + UUID.randomUUID()))
+      .getToken();
+  }
+
+  private WsClient adminClient() {
+    return WsClients.forCredentials(orchestrator.getServer().getUrl(), "admin", "admin");
   }
 
-  private void analyzeEmptyProjectWithScannerCli() {
-    ContextExtension.init("OrchestratorState.StartupCli." + Thread.currentThread().getName());
-    var context = AnalysisContext.forServer("Empty");
-    context.begin.setProperty("sonar.scanner.useSonarScannerCLI", "true");
-    var result = context.runAnalysis();
-    assertTrue(result.begin().isSuccess(), "Orchestrator warmup (scanner CLI) failed - begin step");
-    assertTrue(result.build().isSuccess(), "Orchestrator warmup (scanner CLI) failed - build");
-    assertTrue(result.end().isSuccess(), "Orchestrator warmup (scanner CLI) failed - end step");
-    ContextExtension.cleanup();
+  // To avoid a race condition in the scanner file cache mechanism, the cache is populated before any test
+  private void seedScannerCache() {
+    var supportsProvisioning = orchestrator.getServer().version().isGreaterThanOrEquals(10, 6);
+    ScannerCacheSeeder.forServer(orchestrator, token).seed(supportsProvisioning);
   }
 }
@@ -22,10 +22,13 @@ package com.sonar.it.scanner.msbuild.sonarqube;
 import com.eclipsesource.json.Json;
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.IssueQuery;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
 import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
 import com.sonar.it.scanner.msbuild.utils.ScannerCommand;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.orchestrator.build.BuildResult;
 import java.nio.file.Path;
 import java.util.List;
@@ -38,41 +41,40 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ParameterTest {
 
   @Test
-  void excludeTestProjects_AnalyzeTestProject() {
-    var context = AnalysisContext.forServer("ExcludedTest");
+  void excludeTestProjects_AnalyzeTestProject(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExcludedTest");
     context.begin.setProperty("sonar.dotnet.excludeTestProjects", "false");   // don't exclude test projects
     validate(context, 1);
   }
 
   @Test
-  void excludeTestProjects_ExcludeTestProject() {
-    var context = AnalysisContext.forServer("ExcludedTest");
+  void excludeTestProjects_ExcludeTestProject(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExcludedTest");
     context.begin.setProperty("sonar.dotnet.excludeTestProjects", "true");   // exclude test projects
     validate(context, 0);
   }
 
   @Test
-  void excludeTestProjects_SimulateAzureDevopsEnvironmentSetting() {
-    var context = AnalysisContext.forServer("ExcludedTest")
+  void excludeTestProjects_SimulateAzureDevopsEnvironmentSetting(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExcludedTest")
       .setEnvironmentVariable("SONARQUBE_SCANNER_PARAMS", "{\"sonar.dotnet.excludeTestProjects\":\"true\",\"sonar.verbose\":\"true\"}");
     validate(context, 0);
   }
 
   @Test
-  void excludeTestProjects_SimulateAzureDevopsEnvironmentSettingMalformedJson_LogsWarning() {
-    var context = AnalysisContext.forServer("ExcludedTest")
+  void excludeTestProjects_SimulateAzureDevopsEnvironmentSettingMalformedJson_LogsWarning(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ExcludedTest")
       .setEnvironmentVariable("SONARQUBE_SCANNER_PARAMS", "{\"sonar.dotnet.excludeTestProjects\" }")
       .setQualityProfile(QualityProfile.CS_S1134);
-    var result = context.begin.execute(ORCHESTRATOR);
+    var result = context.begin.execute(context.orchestrator);
 
     assertFalse(result.isSuccess());
     assertThat(result.getLogs()).contains("Failed to parse properties from the environment variable 'SONARQUBE_SCANNER_PARAMS' because " +
@@ -80,8 +82,8 @@ class ParameterTest {
   }
 
   @Test
-  void withSonarQubeScannerParams() {
-    var context = AnalysisContext.forServer("ProjectUnderTest");
+  void withSonarQubeScannerParams(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
     context.setEnvironmentVariable("SONARQUBE_SCANNER_PARAMS", Json.object()
       .add("sonar.buildString", "testValue")  // can be queried from the server via web_api/api/project_analyses/search
       .add("sonar.projectBaseDir", context.projectDir.toString())
@@ -95,7 +97,7 @@ class ParameterTest {
     assertThat(logs).contains("sonar.buildString=testValue");
     assertThat(logs).contains("sonar.projectBaseDir=" + context.projectDir.toString().replace("\\", "\\\\"));
 
-    var webApiResponse = ORCHESTRATOR.getServer()
+    var webApiResponse = context.orchestrator.getServer()
       .newHttpCall("api/project_analyses/search")
       .setParam("project", context.projectKey)
       .execute();
@@ -111,11 +113,11 @@ class ParameterTest {
   }
 
   @Test
-  void qualityProfile_HasParametrizedRule() {
-    var context = AnalysisContext.forServer("ProjectUnderTest").setQualityProfile(QualityProfile.CS_S107);
+  void qualityProfile_HasParametrizedRule(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setQualityProfile(QualityProfile.CS_S107);
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     // 1 * csharpsquid:S1134 (line 34)
     assertThat(issues).hasSize(1);
     assertThat(issues.get(0).getMessage()).isEqualTo("Method has 3 parameters, which is greater than the 2 authorized.");
@@ -128,8 +130,8 @@ class ParameterTest {
     "TRUE",
     "True"
   })
-  void verboseLog_CaseInsensitive(String inputValue) {
-    var context = AnalysisContext.forServer("ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
+  void verboseLog_CaseInsensitive(TestContext testContext, String inputValue) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
     context.begin.setProperty("sonar.verbose", inputValue);
     var result = context.runAnalysis();
     Assertions.assertThat(result.begin().getLogs()).contains("sonar.verbose=True was specified - setting the log verbosity to 'Debug'");
@@ -138,9 +140,10 @@ class ParameterTest {
   }
 
   @Test
-  void helpMessage() {
-    Path projectDir = TestUtils.projectDir(ContextExtension.currentTempDir(), "ProjectUnderTest");
-    BuildResult result = ScannerCommand.createHelpStep(ScannerClassifier.NET, projectDir).execute(ORCHESTRATOR);
+  @NoServer
+  void helpMessage(TestContext testContext) {
+    Path projectDir = TestUtils.projectDir(testContext.tempDir(), "ProjectUnderTest");
+    BuildResult result = ScannerCommand.createHelpStep(ScannerClassifier.NET, projectDir).execute(null);
 
     assertTrue(result.isSuccess());
     assertThat(result.getLogs()).contains("Usage");
@@ -148,8 +151,8 @@ class ParameterTest {
   }
 
   @Test
-  void allProjectsExcluded() {
-    var context = AnalysisContext.forServer("ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
+  void allProjectsExcluded(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
     context.build.addArgument("/p:ExcludeProjectsFromAnalysis=true");
     var logs = context.runFailedAnalysis().end().getLogs();
 
@@ -158,26 +161,26 @@ class ParameterTest {
   }
 
   @Test
-  void sourcesAndTests_Ignored() {
-    var context = AnalysisContext.forServer("SourcesTestsIgnored");
+  void sourcesAndTests_Ignored(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "SourcesTestsIgnored");
     context.begin
       .setProperty("sonar.sources", "Program.cs") // user-defined sources and tests are not passed to the cli.
       .setProperty("sonar.tests", "Program.cs");   // If they were passed, it results to double-indexing error.
     context.build.useDotNet();
     context.runAnalysis();
 
-    if (ORCHESTRATOR.getServer().version().isGreaterThan(9, 9)) {
-      assertThat(TestUtils.projectIssues(ORCHESTRATOR, context.projectKey)).hasSize(4);
+    if (context.orchestrator.getServer().version().isGreaterThan(9, 9)) {
+      assertThat(IssueQuery.of(context.orchestrator, context.projectKey).count()).isEqualTo(4);
     } else {
-      assertThat(TestUtils.projectIssues(ORCHESTRATOR, context.projectKey)).hasSize(3);
+      assertThat(IssueQuery.of(context.orchestrator, context.projectKey).count()).isEqualTo(3);
     }
   }
 
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
-  void sourcesAndTests_ViaEnvironmentVariable_AreNotIgnored_AnalysisFails(boolean useSonarScannerCLI) {
+  void sourcesAndTests_ViaEnvironmentVariable_AreNotIgnored_AnalysisFails(boolean useSonarScannerCLI, TestContext testContext) {
     // Repro for https://sonarsource.atlassian.net/browse/SCAN4NET-1180
-    var context = AnalysisContext.forServer("SourcesTestsIgnored")
+    var context = AnalysisContext.forServer(testContext, "SourcesTestsIgnored")
       .setEnvironmentVariable("SONARQUBE_SCANNER_PARAMS", Json.object()
         .add("sonar.sources", "Program.cs")
         .add("sonar.tests", "Program.cs")
@@ -198,19 +201,19 @@ class ParameterTest {
     String testProjectKey = context.projectKey + ":Test/UnitTest1.cs";
 
     // One issue is in the normal project, one is in test project (when analyzed)
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues).hasSize(1 + expectedTestProjectIssues);
 
-    issues = TestUtils.projectIssues(ORCHESTRATOR, normalProjectKey);
+    issues = TestUtils.projectIssues(context.orchestrator, normalProjectKey);
     assertThat(issues).hasSize(1);
 
-    issues = TestUtils.projectIssues(ORCHESTRATOR, testProjectKey);
+    issues = TestUtils.projectIssues(context.orchestrator, testProjectKey);
     assertThat(issues).hasSize(expectedTestProjectIssues);
 
     // The Excludedtest/Excluded project doesn't exist in SonarQube and there's nothing to assert
 
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(30);
-    assertThat(TestUtils.getMeasureAsInteger(normalProjectKey, "ncloc", ORCHESTRATOR)).isEqualTo(30);
-    assertThat(TestUtils.getMeasureAsInteger(testProjectKey, "ncloc", ORCHESTRATOR)).isNull();
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isEqualTo(30);
+    assertThat(TestUtils.getMeasureAsInteger(normalProjectKey, "ncloc", context.orchestrator)).isEqualTo(30);
+    assertThat(TestUtils.getMeasureAsInteger(testProjectKey, "ncloc", context.orchestrator)).isNull();
   }
 }
@@ -0,0 +1,273 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.orchestrator.config.Configuration;
+import com.sonar.orchestrator.locator.Artifactory;
+import com.sonar.orchestrator.locator.ArtifactoryFactory;
+import com.sonar.orchestrator.locator.FileLocation;
+import com.sonar.orchestrator.locator.MavenLocation;
+import com.sonar.orchestrator.locator.MavenLocator;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Local, content-addressed cache of the plugin jars installed by orchestratorBuilder().
+// Layout of the orchestrator.pluginCacheDir directory (~/.sonar/its/plugins by default):
+//   blobs/<sha256>/<artifactId>-<version>.jar   Plugin jar, the directory name is the SHA-256 of its content
+//   artifacts/<groupId>/<artifactId>/<version>  SHA-256 and file name of the blob of a concrete version
+//   aliases/<groupId>/<artifactId>/<alias>      Concrete version of LATEST_RELEASE or DEV from the last online resolution
+// Plugins are resolved in parallel. Pinned versions and aliases younger than orchestrator.pluginAliasTtl (ISO-8601 duration, PT12H by
+// default, PT0S to always resolve) are looked up in the cache first and need no network once the cache is warm. Expired aliases are resolved
+// again, and fall back to their last resolution when the repository is not reachable.
+// Before a jar enters the cache, its SHA-1 is compared with the .sha1 file of the repository (or of the Maven local repository), and blobs
+// are verified against their SHA-256 before they are used.
+public class PluginCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PluginCache.class);
+
+  private final Path root;
+  private final Duration aliasTtl = Duration.parse(System.getProperty("orchestrator.pluginAliasTtl", "PT12H"));
+  private final Configuration configuration = Configuration.createEnv();
+  private final MavenLocator locator = configuration.locators().maven();
+  private final Artifactory artifactory = ArtifactoryFactory.createArtifactory(configuration);
+  private final Map<MavenLocation, CompletableFuture<FileLocation>> resolved = new ConcurrentHashMap<>();
+  private final ExecutorService executor = Executors.newFixedThreadPool(8, runnable -> {
+    var thread = new Thread(runnable, "PluginCache");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public PluginCache() {
+    this(Paths.get(System.getProperty("orchestrator.pluginCacheDir", Paths.get(System.getProperty("user.home"), ".sonar", "its", "plugins").toString())));
+  }
+
+  public PluginCache(Path root) {
+    this.root = root.toAbsolutePath();
+  }
+
+  // Starts resolving all plugins in parallel and waits for all of them. Plugins that are resolved already are not resolved again.
+  public List<FileLocation> resolve(List<MavenLocation> plugins) {
+    var futures = plugins.stream().map(x -> resolved.computeIfAbsent(x, key -> CompletableFuture.supplyAsync(() -> fetch(key), executor))).toList();
+    try {
+      return futures.stream().map(CompletableFuture::join).toList();
+    } catch (CompletionException ex) {
+      throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+    }
+  }
+
+  // File name -> SHA-256 of the blobs resolved so far. The cache already hashed them, so they don't need to be read again.
+  public Map<String, String> sha256ByFileName() {
+    var result = new HashMap<String, String>();
+    resolved.values().stream()
+      .filter(x -> x.isDone() && !x.isCompletedExceptionally())
+      .map(x -> x.join().getFile().toPath())
+      .forEach(x -> result.put(x.getFileName().toString(), x.getParent().getFileName().toString()));
+    return result;
+  }
+
+  private FileLocation fetch(MavenLocation plugin) {
+    var version = concreteVersion(plugin);
+    var artifact = root.resolve("artifacts").resolve(plugin.getGroupId()).resolve(plugin.getArtifactId()).resolve(version);
+    if (Files.isRegularFile(artifact)) {
+      var cached = cachedBlob(artifact);
+      if (cached != null) {
+        return FileLocation.of(cached.toFile());
+      }
+    }
+    var location = MavenLocation.of(plugin.getGroupId(), plugin.getArtifactId(), version);
+    var file = locator.locate(location);
+    if (file == null) {
+      throw new IllegalStateException("Plugin not found: " + location);
+    }
+    LOG.info("Adding {} to the plugin cache", location);
+    try {
+      var expectedSha1 = expectedSha1(location, file);
+      var temp = Files.createDirectories(root.resolve("tmp")).resolve(UUID.randomUUID().toString());
+      var sha1 = newDigest("SHA-1");
+      var sha256 = newDigest("SHA-256");
+      try (var input = new DigestInputStream(new DigestInputStream(Files.newInputStream(file.toPath()), sha1), sha256)) {
+        Files.copy(input, temp);
+      }
+      if (expectedSha1 != null && !expectedSha1.equalsIgnoreCase(HexFormat.of().formatHex(sha1.digest()))) {
+        Files.delete(temp);
+        throw new IllegalStateException("Checksum mismatch of " + file + ", it does not match the SHA-1 published by the repository for " + location);
+      }
+      var hash = HexFormat.of().formatHex(sha256.digest());
+      var blob = root.resolve("blobs").resolve(hash).resolve(plugin.getArtifactId() + "-" + version + ".jar");
+      Files.createDirectories(blob.getParent());
+      moveAtomically(temp, blob);
+      writeAtomically(artifact, hash + " " + blob.getFileName());
+      return FileLocation.of(blob.toFile());
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to add " + location + " to the plugin cache " + root, ex);
+    }
+  }
+
+  // The .sha1 next to the jar in the Maven local repository, or the one published by the repository. Jars built and installed locally
+  // have no checksum file and are trusted as they are; for anything else, a missing checksum fails the resolution.
+  private String expectedSha1(MavenLocation location, File file) throws IOException {
+    var sibling = Path.of(file.getPath() + ".sha1");
+    if (Files.isRegularFile(sibling)) {
+      return checksumOf(sibling);
+    }
+    var checksum = MavenLocation.builder()
+      .setKey(location.getGroupId(), location.getArtifactId(), location.getVersion())
+      .withPackaging("jar.sha1")
+      .build();
+    var temp = Files.createDirectories(root.resolve("tmp")).resolve(UUID.randomUUID() + ".sha1");
+    try {
+      if (artifactory.downloadToFile(checksum, temp.toFile())) {
+        return checksumOf(temp);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    if (file.toPath().toAbsolutePath().startsWith(configuration.fileSystem().mavenLocalRepository().toPath().toAbsolutePath())) {
+      LOG.warn("No checksum available for {}, trusting the locally installed {}", location, file);
+      return null;
+    }
+    throw new IllegalStateException("No checksum available for " + location + ", " + file + " cannot be verified");
+  }
+
+  // Checksum files contain the hash, optionally followed by the file name
+  private static String checksumOf(Path checksumFile) throws IOException {
+    return Files.readString(checksumFile, StandardCharsets.UTF_8).trim().split("\\s+", 2)[0];
+  }
+
+  private String concreteVersion(MavenLocation plugin) {
+    var version = plugin.getVersion();
+    if (!version.equals("DEV") && !version.startsWith("LATEST_RELEASE")) {
+      return version;
+    }
+    var alias = root.resolve("aliases").resolve(plugin.getGroupId()).resolve(plugin.getArtifactId()).resolve(version);
+    var cached = freshAlias(alias);
+    if (cached != null) {
+      LOG.info("Using the cached resolution of {} to version {}", plugin, cached);
+      return cached;
+    }
+    try {
+      var concrete = locator.resolveVersion(plugin).orElseThrow(() -> new IllegalStateException("Version " + version + " of " + plugin + " cannot be resolved"));
+      writeAtomically(alias, concrete);
+      LOG.info("Resolved {} to version {}", plugin, concrete);
+      return concrete;
+    } catch (RuntimeException | IOException ex) {
+      if (Files.isRegularFile(alias)) {
+        try {
+          var concrete = Files.readString(alias, StandardCharsets.UTF_8).trim();
+          LOG.warn("Failed to resolve {}, using the previously resolved version {}: {}", plugin, concrete, ex.getMessage());
+          return concrete;
+        } catch (IOException readEx) {
+          ex.addSuppressed(readEx);
+        }
+      }
+      throw new IllegalStateException("Failed to resolve version of " + plugin, ex);
+    }
+  }
+
+  // Returns null when the alias is missing, unreadable or older than the TTL, so it is resolved again
+  private String freshAlias(Path alias) {
+    try {
+      if (Files.isRegularFile(alias) && aliasAge(alias).compareTo(aliasTtl) < 0) {
+        var concrete = Files.readString(alias, StandardCharsets.UTF_8).trim();
+        return concrete.isEmpty() ? null : concrete;
+      }
+    } catch (IOException ex) {
+      LOG.warn("Invalid plugin cache alias {}: {}", alias, ex.getMessage());
+    }
+    return null;
+  }
+
+  // The alias is rewritten on each online resolution, so its modification time is the time of the last resolution
+  private static Duration aliasAge(Path alias) throws IOException {
+    return Duration.between(Files.getLastModifiedTime(alias).toInstant(), Instant.now());
+  }
+
+  // Returns null when the blob is missing or corrupted, so it is downloaded again
+  private Path cachedBlob(Path artifact) {
+    try {
+      var entry = Files.readString(artifact, StandardCharsets.UTF_8).trim().split(" ", 2);
+      var blob = root.resolve("blobs").resolve(entry[0]).resolve(entry[1]);
+      if (Files.isRegularFile(blob)) {
+        try (var input = Files.newInputStream(blob)) {
+          if (entry[0].equals(sha256(input))) {
+            return blob;
+          }
+        }
+        LOG.warn("Checksum mismatch of cached plugin {}, it will be downloaded again", blob);
+        Files.delete(blob);
+      }
+    } catch (IOException | ArrayIndexOutOfBoundsException ex) {
+      LOG.warn("Invalid plugin cache entry {}: {}", artifact, ex.getMessage());
+    }
+    return null;
+  }
+
+  private void writeAtomically(Path target, String content) throws IOException {
+    var temp = Files.createDirectories(root.resolve("tmp")).resolve(UUID.randomUUID().toString());
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    Files.createDirectories(target.getParent());
+    moveAtomically(temp, target);
+  }
+
+  // Concurrent runs can write the same entry. Readers never see a partial file.
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  static String sha256(InputStream input) throws IOException {
+    var digest = newDigest("SHA-256");
+    try (var stream = new DigestInputStream(input, digest)) {
+      stream.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
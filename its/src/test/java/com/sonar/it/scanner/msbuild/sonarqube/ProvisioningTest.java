@@ -25,7 +25,9 @@ import com.sonar.it.scanner.msbuild.utils.ProvisioningAssertions;
 import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
 import com.sonar.it.scanner.msbuild.utils.ScannerCommand;
 import com.sonar.it.scanner.msbuild.utils.ServerMinVersion;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -37,10 +39,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
+import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.orchestrator;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ProvisioningTest {
   private static final String DIRECTORY_NAME = "JreProvisioning";
 
@@ -49,9 +51,9 @@ class ProvisioningTest {
   // provisioning does not exist before 10.6, and all newer versions support the scanner-engine download. We need to make sure the
   // combination of JRE cache miss with scanner-cli invocation and scanner-engine download both work as expected
   @ServerMinVersion("10.6")
-  void cacheMiss_DownloadsCache(Boolean useSonarScannerCLI) {
-    var userHome = ContextExtension.currentTempDir().resolve(".sonar").toAbsolutePath();
-    var context = createContext(userHome);
+  void cacheMiss_DownloadsCache(Boolean useSonarScannerCLI, TestContext testContext) {
+    var userHome = testContext.tempDir().resolve(".sonar").toAbsolutePath();
+    var context = createContext(testContext, userHome);
     context.begin.setProperty("sonar.scanner.useSonarScannerCLI", useSonarScannerCLI.toString()); // The downloaded JRE needs to be used by scanner-cli and scanner-engine
     context.build.useDotNet();
     // JAVA_HOME might not be set in the environment, so we set it to a non-existing path
@@ -60,22 +62,22 @@ class ProvisioningTest {
     context.end.setEnvironmentVariable("JAVA_HOME", oldJavaHome);
     var result = context.runAnalysis();
 
-    ProvisioningAssertions.cacheMissAssertions(result, ORCHESTRATOR.getServer().getUrl() + "/api/v2", userHome.toString(), oldJavaHome, false, useSonarScannerCLI);
+    ProvisioningAssertions.cacheMissAssertions(result, context.orchestrator.getServer().getUrl() + "/api/v2", userHome.toString(), oldJavaHome, false, useSonarScannerCLI);
   }
 
   @Test
   // provisioning does not exist before 10.6
   @ServerMinVersion("10.6")
-  void cacheHit_ReusesCachedFiles() {
-    var userHome = ContextExtension.currentTempDir().resolve(".sonar").toAbsolutePath();
-    var context = createContext(userHome);
+  void cacheHit_ReusesCachedFiles(TestContext testContext) {
+    var userHome = testContext.tempDir().resolve(".sonar").toAbsolutePath();
+    var context = createContext(testContext, userHome);
     // first analysis, cache misses and downloads the JRE & scanner-engine
-    var cacheMiss = context.begin.execute(ORCHESTRATOR);
+    var cacheMiss = context.begin.execute(context.orchestrator);
 
-    ProvisioningAssertions.assertCacheMissBeginStep(cacheMiss, ORCHESTRATOR.getServer().getUrl() + "/api/v2", userHome.toString(), false, false);
+    ProvisioningAssertions.assertCacheMissBeginStep(cacheMiss, context.orchestrator.getServer().getUrl() + "/api/v2", userHome.toString(), false, false);
 
     // second analysis, cache hits and does not download the JRE or scanner-engine
-    var cacheHit = context.begin.execute(ORCHESTRATOR);
+    var cacheHit = context.begin.execute(context.orchestrator);
 
     ProvisioningAssertions.cacheHitAssertions(cacheHit, userHome.toString());
   }
@@ -83,10 +85,10 @@ class ProvisioningTest {
   @Test
   // provisioning does not exist before 10.6
   @ServerMinVersion("10.6")
-  void scannerEngineJarPathSet_DoesNotDownloadFromServer() throws IOException {
-    var userHome = ContextExtension.currentTempDir().resolve(".sonar").toAbsolutePath();
-    var context = createContext(userHome);
-    var engineJarFolder = Path.of(ORCHESTRATOR.getServer().getHome().getAbsolutePath(), "lib", "scanner"); // this must be a file that exists.
+  void scannerEngineJarPathSet_DoesNotDownloadFromServer(TestContext testContext) throws IOException {
+    var userHome = testContext.tempDir().resolve(".sonar").toAbsolutePath();
+    var context = createContext(testContext, userHome);
+    var engineJarFolder = Path.of(context.orchestrator.getServer().getHome().getAbsolutePath(), "lib", "scanner"); // this must be a file that exists.
     try (Stream<Path> paths = Files.list(engineJarFolder)) {
       var scannerJarPath = paths
         .findFirst()
@@ -94,7 +96,7 @@ class ProvisioningTest {
 
       var result = context.begin
         .setProperty("sonar.scanner.engineJarPath", scannerJarPath.toString())
-        .execute(ORCHESTRATOR);
+        .execute(context.orchestrator);
 
       assertThat(result.getLogs())
         .contains(
@@ -109,36 +111,29 @@ class ProvisioningTest {
 
   @Test
   @ServerMinVersion("2025.6")
-  void jreAutoProvisioning_disabled() {
-    // sonar.jreAutoProvisioning.disabled is a server wide setting and errors with "Setting 'sonar.jreAutoProvisioning.disabled' cannot be set on a Project"
-    // We need our own server instance here so we do not interfere with other JRE tests.
-    var orchestrator = ServerTests.orchestratorBuilder()
-      .setServerProperty("sonar.jreAutoProvisioning.disabled", "true")
-      .build();
-    orchestrator.start();
-    try {
-      var begin = ScannerCommand.createBeginStep(
-          ScannerClassifier.NET,
-          orchestrator.getDefaultAdminToken(),
-          TestUtils.projectDir(ContextExtension.currentTempDir(), DIRECTORY_NAME),
-          ContextExtension.currentTestName())
-        .setDebugLogs()
-        .setProperty("sonar.scanner.skipJreProvisioning", "false")
-        .execute(orchestrator);
-      assertThat(begin.getLogs())
-        .contains("JreResolver: Resolving JRE path.")
-        .contains("JreResolver: Metadata could not be retrieved.")
-        .as("An empty list of JREs is supposed to be invalid. Therefore a single retry should be attempted.")
-        .containsOnlyOnce("JreResolver: Resolving JRE path. Retrying...")
-        .as("sonar.jreAutoProvisioning.disabled=true should be handled gracefully.")
-        .doesNotContain("WARNING: JRE Metadata could not be retrieved from analysis/jres");
-    } finally {
-      orchestrator.stop();
-    }
+  // sonar.jreAutoProvisioning.disabled is a server wide setting and errors with "Setting 'sonar.jreAutoProvisioning.disabled' cannot be set on a Project"
+  // We need our own server instance here so we do not interfere with other JRE tests.
+  @ServerProperties("sonar.jreAutoProvisioning.disabled=true")
+  void jreAutoProvisioning_disabled(TestContext testContext) {
+    var begin = ScannerCommand.createBeginStep(
+        ScannerClassifier.NET,
+        ServerTests.token(testContext),
+        TestUtils.projectDir(testContext.tempDir(), DIRECTORY_NAME),
+        testContext.testName())
+      .setDebugLogs()
+      .setProperty("sonar.scanner.skipJreProvisioning", "false")
+      .execute(orchestrator(testContext));
+    assertThat(begin.getLogs())
+      .contains("JreResolver: Resolving JRE path.")
+      .contains("JreResolver: Metadata could not be retrieved.")
+      .as("An empty list of JREs is supposed to be invalid. Therefore a single retry should be attempted.")
+      .containsOnlyOnce("JreResolver: Resolving JRE path. Retrying...")
+      .as("sonar.jreAutoProvisioning.disabled=true should be handled gracefully.")
+      .doesNotContain("WARNING: JRE Metadata could not be retrieved from analysis/jres");
   }
 
-  private static AnalysisContext createContext(Path userHome) {
-    var context = AnalysisContext.forServer(DIRECTORY_NAME);
+  private static AnalysisContext createContext(TestContext testContext, Path userHome) {
+    var context = AnalysisContext.forServer(testContext, DIRECTORY_NAME);
     context.begin
       .setProperty("sonar.userHome", userHome.toString())
       .setProperty("sonar.scanner.skipJreProvisioning", null)  // Undo the default IT behavior and use the default scanner behavior.
@@ -21,9 +21,12 @@ package com.sonar.it.scanner.msbuild.sonarqube;
 
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
+import com.sonar.it.scanner.msbuild.utils.MeasureSnapshot;
 import com.sonar.it.scanner.msbuild.utils.ProxyAuthenticator;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.orchestrator.util.NetworkUtils;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -56,10 +59,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ProxyTest {
   private static final String PROXY_USER = "scott";
   private static final String PROXY_PASSWORD = "tiger";
@@ -81,9 +83,9 @@ class ProxyTest {
   }
 
   @Test
-  void proxyAuth() throws Exception {
+  void proxyAuth(TestContext testContext) throws Exception {
     startProxy(true);
-    var context = AnalysisContext.forServer("ProjectUnderTest")
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest")
       .setEnvironmentVariable("SONAR_SCANNER_OPTS", "-Dhttp.nonProxyHosts= -Dhttp.proxyHost=localhost -Dhttp.proxyPort=" + httpProxyPort)
       .setQualityProfile(QualityProfile.CS_S1134);
 
@@ -96,15 +98,16 @@ class ProxyTest {
       .setEnvironmentVariable("SONAR_SCANNER_OPTS",
         "-Dhttp.nonProxyHosts= -Dhttp.proxyHost=localhost -Dhttp.proxyPort=" + httpProxyPort + " -Dhttp.proxyUser=" + PROXY_USER + " -Dhttp.proxyPassword=" + PROXY_PASSWORD)
       .end
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     var fileKey = context.projectKey + ":ProjectUnderTest/Foo.cs";
     // 1 * csharpsquid:S1134 (line 34)
     assertThat(issues).hasSize(1);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(25);
-    assertThat(TestUtils.getMeasureAsInteger(fileKey, "ncloc", ORCHESTRATOR)).isEqualTo(25);
-    assertThat(TestUtils.getMeasureAsInteger(fileKey, "lines", ORCHESTRATOR)).isEqualTo(52);
+    var measures = MeasureSnapshot.of(context.orchestrator, context.projectKey, "ncloc", "lines");
+    assertThat(measures.getInteger(context.projectKey, "ncloc")).isEqualTo(25);
+    assertThat(measures.getInteger(fileKey, "ncloc")).isEqualTo(25);
+    assertThat(measures.getInteger(fileKey, "lines")).isEqualTo(52);
     assertThat(seenByProxy).isNotEmpty();
     assertThat(TestUtils.scannerEngineInputJson(context)).hasAllSecretsRedacted();
   }
@@ -0,0 +1,95 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.it.scanner.msbuild.utils.QualityProfile;
+import com.sonar.orchestrator.Orchestrator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.client.PostRequest;
+import org.sonarqube.ws.client.WsClient;
+
+// Restores the profiles from the /qualityProfiles directory concurrently, over the connection pool of a single WS client.
+// The SHA-256 of each restored XML is recorded as a marker in the data directory of the server. The markers are part of the database state,
+// so they are reused together with it by restarted and snapshotted servers, and only the new and modified profiles are restored again.
+public class QualityProfileRestorer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(QualityProfileRestorer.class);
+  private static final int THREADS = 4;
+
+  private final WsClient client;
+  private final Path markers;
+
+  public QualityProfileRestorer(Orchestrator orchestrator, WsClient client) {
+    this.client = client;
+    this.markers = orchestrator.getServer().getHome().toPath().resolve("data").resolve("its-quality-profiles");
+  }
+
+  public void restoreAll() {
+    var executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      var futures = QualityProfile.allProfiles().stream().map(x -> CompletableFuture.runAsync(() -> restore(x), executor)).toList();
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException ex) {
+      throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void restore(String profile) {
+    var file = Paths.get("qualityProfiles", profile + ".xml");
+    var marker = markers.resolve(profile + ".sha256");
+    try {
+      var sha256 = sha256(file);
+      if (Files.isRegularFile(marker) && Files.readString(marker).equals(sha256)) {
+        LOG.info("Quality profile {} is unchanged, skipping restore", profile);
+        return;
+      }
+      client.wsConnector().call(new PostRequest("api/qualityprofiles/restore").setPart("backup", new PostRequest.Part(MediaTypes.XML, file.toFile()))).failIfNotSuccessful();
+      var temp = Files.createDirectories(markers).resolve(UUID.randomUUID() + ".tmp");
+      Files.writeString(temp, sha256);
+      Files.move(temp, marker, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to restore quality profile " + profile, ex);
+    }
+  }
+
+  private static String sha256(Path file) throws IOException {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -22,7 +22,9 @@ package com.sonar.it.scanner.msbuild.sonarqube;
 import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.DisableOnEdition;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.orchestrator.container.Edition;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -31,29 +33,28 @@ import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class SQLServerTest {
 
   @Test
   // The project contains a .sqlproj file, which is only supported by Visual Studio, so it requires MSBuild to be build it
   @EnabledOnOs(OS.WINDOWS)
   @DisableOnEdition(Edition.COMMUNITY)
-  void sqlProject_AnalyzesAlsoCSharp() {
-    var context = AnalysisContext.forServer("SQLServerSolution");
+  void sqlProject_AnalyzesAlsoCSharp(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "SQLServerSolution");
     context.runAnalysis();
 
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
-    if (ORCHESTRATOR.getServer().version().isGreaterThan(9, 9)) {
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
+    if (context.orchestrator.getServer().version().isGreaterThan(9, 9)) {
       assertThat(issues).hasSize(4);
     } else {
       assertThat(issues).hasSize(3);
     }
     var fileKey = context.projectKey + ":Database1/util/SqlStoredProcedure1.cs";
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(36);
-    assertThat(TestUtils.getMeasureAsInteger(fileKey, "ncloc", ORCHESTRATOR)).isEqualTo(19);
-    assertThat(TestUtils.getMeasureAsInteger(fileKey, "lines", ORCHESTRATOR)).isEqualTo(23);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isEqualTo(36);
+    assertThat(TestUtils.getMeasureAsInteger(fileKey, "ncloc", context.orchestrator)).isEqualTo(19);
+    assertThat(TestUtils.getMeasureAsInteger(fileKey, "lines", context.orchestrator)).isEqualTo(23);
   }
 }
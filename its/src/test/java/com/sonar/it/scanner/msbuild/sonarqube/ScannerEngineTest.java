@@ -23,7 +23,9 @@ import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.OSPlatform;
 import com.sonar.it.scanner.msbuild.utils.ServerMinVersion;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.it.scanner.msbuild.utils.Timeout;
 import com.sonar.orchestrator.util.StreamConsumer;
 import com.sonar.orchestrator.util.command.Command;
@@ -45,19 +47,18 @@ import org.sonarqube.ws.ProjectAnalyses;
 import org.sonarqube.ws.client.projectanalyses.SearchRequest;
 import org.xml.sax.SAXException;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ScannerEngineTest {
 
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   @ServerMinVersion("2025.1")
-  void scannerInput_UTF8(boolean useSonarScannerCLI) {
-    var context = AnalysisContext.forServer(Paths.get("ScannerEngine", "UTF8Filenames_äöü").toString());
+  void scannerInput_UTF8(boolean useSonarScannerCLI, TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, Paths.get("ScannerEngine", "UTF8Filenames_äöü").toString());
     context.begin
       .setProperty("sonar.scanner.useSonarScannerCLI", Boolean.toString(useSonarScannerCLI))
       .setProperty("sonar.buildString", "'_äöüß_😊_ソナー") // Round trip a string property with problematic characters from the begin step to the final analysis result on the server
@@ -65,7 +66,7 @@ class ScannerEngineTest {
     var result = context.runAnalysis();
 
     assertTrue(result.isSuccess());
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues)
       .filteredOn(x -> x.getRule().equals("csharpsquid:S101"))
       .extracting(x -> tuple(x.getComponent(), x.getRule(), x.getMessage()))
@@ -75,7 +76,7 @@ class ScannerEngineTest {
           "csharpsquid:S101",
           "Rename class 'UTF8Filename_äöüß_ソナー' to match pascal case naming rules, consider using 'Utf8Filenameäöüßソナー'.")
       );
-    var analyses = TestUtils.newWsClient(ORCHESTRATOR).projectAnalyses().search(new SearchRequest().setProject(context.projectKey)).getAnalysesList();
+    var analyses = TestUtils.newWsClient(context.orchestrator).projectAnalyses().search(new SearchRequest().setProject(context.projectKey)).getAnalysesList();
     assertThat(analyses)
       .extracting(ProjectAnalyses.Analysis::getBuildString)
       .as("The round-tripped sonar.buildString property must match the input.")
@@ -96,24 +97,24 @@ class ScannerEngineTest {
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   @ServerMinVersion("2025.1")
-  void javaExe_fromPath(boolean useSonarScannerCLI) throws ParserConfigurationException, IOException, SAXException {
+  void javaExe_fromPath(boolean useSonarScannerCLI, TestContext testContext) throws ParserConfigurationException, IOException, SAXException {
     // Test if java.exe is found via %PATH% when skipJreProvisioning=true and JAVA_HOME=null
-    var context = AnalysisContext.forServer("Empty");
+    var context = AnalysisContext.forServer(testContext, "Empty");
     context.begin
       .setProperty("sonar.scanner.useSonarScannerCLI", Boolean.toString(useSonarScannerCLI))
       .setProperty("sonar.scanner.skipJreProvisioning", "false") // Download a JRE we can use in %PATH%
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
     var jreDetails = jreDetailsFromSonarQubeAnalysisConfig(context);
     context.begin
       .setProperty("sonar.scanner.skipJreProvisioning", "true")
-      .execute(ORCHESTRATOR); // Re-run the begin step with skipJreProvisioning, so JavaExePath is no longer present in SonarQubeAnalysisConfig.xml
+      .execute(context.orchestrator); // Re-run the begin step with skipJreProvisioning, so JavaExePath is no longer present in SonarQubeAnalysisConfig.xml
     context.build.execute();
     var result = context.end
       .setEnvironmentVariable("JAVA_HOME", null)
       // %PATH% must be kept, because we run "dotnet.exe". We add the path of the JRE in the beginning, so it is found first.
       .setEnvironmentVariable("PATH", jreDetails.javaExe.getParent() + File.pathSeparator + System.getenv("PATH"))
       .setEnvironmentVariable("Path", null) // Windows: "Path" is the default name, and we need to make sure there is only one PATH
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
     assertThat(result.isSuccess()).isTrue();
     var logs = result.getLogs();
     // https://github.com/SonarSource/sonar-scanner-cli/blob/5.0.2.4997/src/main/java/org/sonarsource/scanner/cli/SystemInfo.java#L62-L74
@@ -132,15 +133,15 @@ class ScannerEngineTest {
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   @ServerMinVersion("2025.1")
-  void javaExe_withCacheDirectory(boolean useSonarScannerCLI) {
-    var context = AnalysisContext.forServer("Empty");
-    var sonarHome = ContextExtension.currentTempDir().resolve(".sonar").toAbsolutePath().toString();
+  void javaExe_withCacheDirectory(boolean useSonarScannerCLI, TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "Empty");
+    var sonarHome = testContext.tempDir().resolve(".sonar").toAbsolutePath().toString();
     context.begin
       .setProperty("sonar.userHome", sonarHome) // set the download directory for scanner-cli and JRE
       .setProperty("sonar.scanner.useSonarScannerCLI", Boolean.toString(useSonarScannerCLI))
       .setProperty("sonar.scanner.skipJreProvisioning", "false")
       .setDebugLogs()
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
     var result = context.runAnalysis();
     assertThat(result.isSuccess()).isTrue();
     if (OSPlatform.isWindows()) {
@@ -155,14 +156,14 @@ class ScannerEngineTest {
     "sonar.scanner.useSonarScannerCLI, false, EngineJarPath",
     "sonar.scanner.skipJreProvisioning, false, JavaExePath"})
   @ServerMinVersion("2025.1")
-  void scannerEngineJarPath_PassedAsAbsolute(String argument, String value, String element) throws ParserConfigurationException, IOException, SAXException {
-    var context = AnalysisContext.forServer("Empty");
+  void scannerEngineJarPath_PassedAsAbsolute(String argument, String value, String element, TestContext testContext) throws ParserConfigurationException, IOException, SAXException {
+    var context = AnalysisContext.forServer(testContext, "Empty");
     context.begin
       .setProperty(argument, value)
       .setProperty("sonar.userHome", "../relative/path/")
       .setDebugLogs();
 
-    context.begin.execute(ORCHESTRATOR);
+    context.begin.execute(context.orchestrator);
 
     assertThat(DocumentBuilderFactory.newInstance().newDocumentBuilder()
       .parse(context.projectDir.resolve(".sonarqube").resolve("conf").resolve("SonarQubeAnalysisConfig.xml").toFile())
@@ -23,7 +23,9 @@ import com.sonar.it.scanner.msbuild.utils.AnalysisContext;
 import com.sonar.it.scanner.msbuild.utils.ContextExtension;
 import com.sonar.it.scanner.msbuild.utils.MSBuildMinVersion;
 import com.sonar.it.scanner.msbuild.utils.QualityProfile;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import com.sonar.it.scanner.msbuild.utils.Timeout;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -33,42 +35,41 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.sonarqube.ws.Components;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class ScannerTest {
 
   @Test
-  void basicAnalysis() {
-    var context = AnalysisContext.forServer("ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
+  void basicAnalysis(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setQualityProfile(QualityProfile.CS_S1134);
     context.begin.setProperty("sonar.scanner.useSonarScannerCLI", "false");
     var result = context.runAnalysis();
 
     assertTrue(result.isSuccess());
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     // 1 * csharpsquid:S1134 (line 34)
     assertThat(issues).hasSize(1);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(25);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":ProjectUnderTest/Foo.cs", "ncloc", ORCHESTRATOR)).isEqualTo(25);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":ProjectUnderTest/Foo.cs", "lines", ORCHESTRATOR)).isEqualTo(52);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isEqualTo(25);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":ProjectUnderTest/Foo.cs", "ncloc", context.orchestrator)).isEqualTo(25);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey + ":ProjectUnderTest/Foo.cs", "lines", context.orchestrator)).isEqualTo(52);
   }
 
 
   @Test
-  void noActiveRule() {
-    var context = AnalysisContext.forServer("ProjectUnderTest").setQualityProfile(QualityProfile.CS_Empty);
+  void noActiveRule(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setQualityProfile(QualityProfile.CS_Empty);
     var result = context.runAnalysis();
 
     assertTrue(result.isSuccess());
-    List<Issue> issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues).isEmpty();
   }
 
   @Test
-  void excludeAssemblyAttribute() {
-    var context = AnalysisContext.forServer("AssemblyAttribute").setQualityProfile(QualityProfile.CS_S1134);
+  void excludeAssemblyAttribute(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "AssemblyAttribute").setQualityProfile(QualityProfile.CS_S1134);
     var result = context.runAnalysis();
 
     assertTrue(result.isSuccess());
@@ -79,22 +80,22 @@ class ScannerTest {
 
   @Test
   @MSBuildMinVersion(16)
-  void targetUninstall() {
-    var context = AnalysisContext.forServer("CSharpAllFlat");
+  void targetUninstall(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpAllFlat");
     context.build.addArgument("CSharpAllFlat.sln");
     context.runAnalysis();
 
     var result = context.build.execute();
     assertTrue(result.isSuccess());
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
+    assertThat(TestUtils.listComponents(context.orchestrator, context.projectKey))
       .extracting(Components.Component::getKey)
       .contains(context.projectKey + ":Common.cs"); // Newer version of SQ contains also NuGet.config
   }
 
   @Test
-  void projectTypeDetection_WithWrongCasingReferenceName() {
-    var context = AnalysisContext.forServer("DotnetProjectTypeDetection");
+  void projectTypeDetection_WithWrongCasingReferenceName(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "DotnetProjectTypeDetection");
     var endLogs = context.runAnalysis().end().getLogs();
 
     assertThat(endLogs).contains("Found 1 MSBuild C# project: 1 TEST project.");
@@ -105,13 +106,13 @@ class ScannerTest {
   @EnabledOnOs(OS.WINDOWS)
   // We can't build without MsBuild17
   @MSBuildMinVersion(17)
-  void duplicateAnalyzersWithSameName_AreNotRemoved() {
+  void duplicateAnalyzersWithSameName_AreNotRemoved(TestContext testContext) {
     // ensure that the Environment Variable parsing happens for .NET Core versions
-    var context = AnalysisContext.forServer("DuplicateAnalyzerReferences");
+    var context = AnalysisContext.forServer(testContext, "DuplicateAnalyzerReferences");
     context.begin.setEnvironmentVariable("SONARQUBE_SCANNER_PARAMS", "{}");
-    context.build.addArgument("-v:m").setTimeout(Timeout.FIVE_MINUTES);
+    context.build.addArgument("-v:m").setTimeout(Timeout.FIVE_MINUTES).withColdBuildServers();
     var logs = context.runAnalysis().end().getLogs();
-    var issues = TestUtils.projectIssues(ORCHESTRATOR, context.projectKey);
+    var issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
 
     assertThat(logs).doesNotContain("Failed to parse properties from the environment variable 'SONARQUBE_SCANNER_PARAMS'");
     assertThat(issues).hasSize(3)
@@ -121,8 +122,8 @@ class ScannerTest {
         "csharpsquid:S1186", // Program.cs line 10
         "csharpsquid:S1481"); // Generator.cs line 18
 
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "lines", ORCHESTRATOR)).isEqualTo(40);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", ORCHESTRATOR)).isEqualTo(30);
-    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "files", ORCHESTRATOR)).isEqualTo(2);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "lines", context.orchestrator)).isEqualTo(40);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "ncloc", context.orchestrator)).isEqualTo(30);
+    assertThat(TestUtils.getMeasureAsInteger(context.projectKey, "files", context.orchestrator)).isEqualTo(2);
   }
 }
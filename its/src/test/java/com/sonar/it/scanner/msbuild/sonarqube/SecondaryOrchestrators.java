@@ -0,0 +1,68 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Servers with server-wide settings that cannot be changed on the shared servers of the pool without interfering with other tests.
+// They are keyed by their server properties, so tests asking for the same properties share one instance. It is started on its first use and stopped when the JVM exits.
+public class SecondaryOrchestrators {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SecondaryOrchestrators.class);
+
+  private final Map<Map<String, String>, OrchestratorLease> leases = new HashMap<>();
+  private final Function<Map<String, String>, Orchestrator> factory;
+
+  public SecondaryOrchestrators(Function<Map<String, String>, Orchestrator> factory) {
+    this.factory = factory;
+    Runtime.getRuntime().addShutdownHook(new Thread(this::stopAll, "SecondaryOrchestrators.stopAll"));
+  }
+
+  public synchronized OrchestratorLease lease(Map<String, String> properties) {
+    return leases.computeIfAbsent(Map.copyOf(properties), x -> new OrchestratorLease(new OrchestratorState(() -> factory.apply(x))));
+  }
+
+  public synchronized boolean contains(Orchestrator orchestrator) {
+    return leases.values().stream().anyMatch(x -> x.state().owns(orchestrator));
+  }
+
+  public synchronized OrchestratorState stateOf(Orchestrator orchestrator) {
+    return leases.values().stream()
+      .map(OrchestratorLease::state)
+      .filter(x -> x.owns(orchestrator))
+      .findFirst()
+      .orElseThrow(() -> new IllegalStateException("Orchestrator is not a secondary orchestrator."));
+  }
+
+  private synchronized void stopAll() {
+    for (var entry : leases.entrySet()) {
+      try {
+        entry.getValue().stopOnce();
+      } catch (RuntimeException ex) {
+        LOG.warn("Failed to stop the secondary orchestrator with properties {}", entry.getKey(), ex);
+      }
+    }
+  }
+}
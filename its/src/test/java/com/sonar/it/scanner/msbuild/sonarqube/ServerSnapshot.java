@@ -0,0 +1,136 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.sonarqube;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Copy of the server data (embedded H2 database and Elasticsearch indexes) taken after the OrchestratorState warm-up.
+// It is keyed by the server version, edition and the content of the installed plugin jars, so any change of the orchestratorBuilder() setup,
+// including a jar rebuilt under the same name like the custom Roslyn plugin, produces a new snapshot.
+// Enabled by the orchestrator.snapshotDir system property, that should point to a directory that survives between runs.
+public class ServerSnapshot {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServerSnapshot.class);
+  private static final String DATA = "data";
+  private static final String TOKEN = "token.txt";
+
+  private final Path serverHome;
+  private final Path directory;
+
+  private ServerSnapshot(Path serverHome, Path directory) {
+    this.serverHome = serverHome;
+    this.directory = directory;
+  }
+
+  // The server must be installed, but not started. Jars with a known SHA-256 are not read again.
+  public static Optional<ServerSnapshot> of(Orchestrator orchestrator, Map<String, String> knownSha256ByFileName) {
+    var root = System.getProperty("orchestrator.snapshotDir");
+    if (root == null || root.isEmpty()) {
+      return Optional.empty();
+    }
+    var server = orchestrator.getServer();
+    var home = server.getHome().toPath();
+    var key = key(server.version().toString(), server.getEdition().name(), home, knownSha256ByFileName);
+    return Optional.of(new ServerSnapshot(home, Paths.get(root).toAbsolutePath().resolve(key)));
+  }
+
+  public boolean exists() {
+    return Files.isRegularFile(directory.resolve(TOKEN));
+  }
+
+  // Replaces the data of the installed server with the snapshot and returns the token that was generated for it
+  public String restore() {
+    LOG.info("Restoring server snapshot from {}", directory);
+    try {
+      var data = serverHome.resolve(DATA).toFile();
+      FileUtils.deleteDirectory(data);
+      FileUtils.copyDirectory(directory.resolve(DATA).toFile(), data);
+      return Files.readString(directory.resolve(TOKEN), StandardCharsets.UTF_8).trim();
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to restore server snapshot from " + directory, ex);
+    }
+  }
+
+  // The server must be stopped, so the database files are consistent
+  public void save(String token) {
+    var temp = directory.resolveSibling(directory.getFileName() + ".tmp-" + UUID.randomUUID());
+    LOG.info("Saving server snapshot to {}", directory);
+    try {
+      FileUtils.copyDirectory(serverHome.resolve(DATA).toFile(), temp.resolve(DATA).toFile());
+      Files.writeString(temp.resolve(TOKEN), token, StandardCharsets.UTF_8);
+      // Other instances of the pool can save the same snapshot concurrently. The first complete one wins.
+      Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      if (exists()) {
+        LOG.info("Server snapshot {} was already saved by another instance", directory);
+      } else {
+        // Snapshots are an optimization. The run can continue with the started server.
+        LOG.warn("Failed to save server snapshot to " + directory, ex);
+      }
+    } finally {
+      FileUtils.deleteQuietly(temp.toFile());
+    }
+  }
+
+  private static String key(String version, String edition, Path home, Map<String, String> knownSha256ByFileName) {
+    var pluginDir = home.resolve("extensions").resolve("plugins");
+    var plugins = pluginDir.toFile().list((dir, name) -> name.endsWith(".jar"));
+    if (plugins == null) {
+      plugins = new String[0];
+    }
+    Arrays.sort(plugins);
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      digest.update((version + File.pathSeparator + edition).getBytes(StandardCharsets.UTF_8));
+      for (var plugin : plugins) {
+        var sha256 = knownSha256ByFileName.get(plugin);
+        if (sha256 == null) {
+          try (var input = Files.newInputStream(pluginDir.resolve(plugin))) {
+            sha256 = PluginCache.sha256(input);
+          }
+        }
+        digest.update((File.pathSeparator + plugin + "=" + sha256).getBytes(StandardCharsets.UTF_8));
+      }
+      return version + "-" + edition + "-" + HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to hash the plugins of " + home, ex);
+    }
+  }
+}
@@ -19,6 +19,7 @@
  */
 package com.sonar.it.scanner.msbuild.sonarqube;
 
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.orchestrator.Orchestrator;
 import com.sonar.orchestrator.container.Edition;
 import com.sonar.orchestrator.junit5.OrchestratorExtension;
@@ -31,33 +32,78 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
-public class ServerTests implements BeforeAllCallback, AfterAllCallback {
+public class ServerTests implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
 
-  public static final Orchestrator ORCHESTRATOR = createOrchestrator();
-  private static final OrchestratorState ORCHESTRATOR_STATE = new OrchestratorState(ORCHESTRATOR);
+  private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(ServerTests.class);
+  // Shared by all servers of the pool, so each plugin is resolved once per run.
+  private static final PluginCache PLUGIN_CACHE = new PluginCache();
+  // Number of independent servers. Each test class leases one of them, so their Compute Engine queues process analyses in parallel.
+  private static final OrchestratorPool POOL = new OrchestratorPool(Integer.getInteger("orchestrator.poolSize", 1), ServerTests::createOrchestrator);
+  // Servers with server-wide properties requested by @ServerProperties.
+  private static final SecondaryOrchestrators SECONDARY = new SecondaryOrchestrators(ServerTests::createOrchestrator);
+  // IT classes run in parallel, and the tests of a class can run concurrently too. The lease of the class lives in the store of the class,
+  // the server used by a test in the store of the test. Nothing is bound to the thread, tests resolve it through their TestContext.
+  private static final String TEST_LEASE = "testLease";
 
   @Override
   public void beforeAll(ExtensionContext extensionContext) {
-    ORCHESTRATOR_STATE.startOnce();
+    // The server itself is started lazily, on the first call to orchestrator(TestContext) or token(TestContext)
+    extensionContext.getStore(NAMESPACE).put(OrchestratorLease.class, new OrchestratorLease(POOL.lease()));
   }
 
   @Override
   public void afterAll(ExtensionContext extensionContext) {
-    ORCHESTRATOR_STATE.stopOnce();
+    var lease = extensionContext.getStore(NAMESPACE).remove(OrchestratorLease.class, OrchestratorLease.class);
+    if (lease != null) {
+      try {
+        lease.stopOnce();
+      } finally {
+        POOL.release(lease.state());
+      }
+    }
+  }
+
+  @Override
+  public void beforeEach(ExtensionContext extensionContext) {
+    extensionContext.getStore(NAMESPACE).put(TEST_LEASE, leaseOfTest(extensionContext));
   }
 
-  public static String token() {
-    return ORCHESTRATOR_STATE.token();
+  @Override
+  public void afterEach(ExtensionContext extensionContext) {
+    extensionContext.getStore(NAMESPACE).remove(TEST_LEASE);
+  }
+
+  public static Orchestrator orchestrator(TestContext testContext) {
+    return testLease(testContext.extensionContext()).orchestrator();
+  }
+
+  // For execution conditions, they are evaluated before the BeforeEach callbacks. The condition of a test with @ServerProperties
+  // resolves its secondary server, so the server of the class is not started just to read a version the test won't run against.
+  public static Orchestrator orchestrator(ExtensionContext extensionContext) {
+    return leaseOfTest(extensionContext).orchestrator();
+  }
+
+  public static String token(TestContext testContext) {
+    return testLease(testContext.extensionContext()).token();
+  }
+
+  public static String token(Orchestrator orchestrator) {
+    return SECONDARY.contains(orchestrator) ? SECONDARY.stateOf(orchestrator).token() : POOL.stateOf(orchestrator).token();
   }
 
   // Supported since SQS 10.6
-  public static Boolean serverSupportsProvisioning() {
-    return ORCHESTRATOR.getServer().version().isGreaterThanOrEquals(10, 6);
+  public static Boolean serverSupportsProvisioning(Orchestrator orchestrator) {
+    return orchestrator.getServer().version().isGreaterThanOrEquals(10, 6);
   }
 
   public static OrchestratorExtensionBuilder orchestratorBuilder() {
@@ -70,24 +116,26 @@ public class ServerTests implements BeforeAllCallback, AfterAllCallback {
       .setServerProperty("sonar.telemetry.enable", "false"); // Disabling telemetry to avoid polluting our own data.
     // Plugin versions are defined in https://github.com/SonarSource/sonar-scanner-msbuild/blob/master/.github/workflows/ci.yml
     // Set the version to NONE to disable the plugin.
-    addPlugin(orchestrator, "com.sonarsource.cpp", "sonar-cfamily-plugin", "sonar.cfamilyplugin.version");
-    addPlugin(orchestrator, "com.sonarsource.plsql", "sonar-plsql-plugin", "sonar.plsqlplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.css", "sonar-css-plugin", "sonar.css.version", "NONE");
-    addPlugin(orchestrator, "org.sonarsource.dotnet", "sonar-csharp-plugin", "sonar.csharpplugin.version", "DEV");
-    addPlugin(orchestrator, "org.sonarsource.dotnet", "sonar-vbnet-plugin", "sonar.vbnetplugin.version", "DEV");
-    addPlugin(orchestrator, "org.sonarsource.iac", "sonar-iac-plugin", "sonar.iacplugin.version");
-    addPlugin(orchestrator, "com.sonarsource.iac", "sonar-iac-enterprise-plugin", "sonar.iacplugin-enterprise.version");
-    addPlugin(orchestrator, "org.sonarsource.java", "sonar-java-plugin", "sonar.javaplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.javascript", "sonar-javascript-plugin", "sonar.javascriptplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.php", "sonar-php-plugin", "sonar.phpplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.python", "sonar-python-plugin", "sonar.pythonplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.text", "sonar-text-plugin", "sonar.textplugin.version");
-    addPlugin(orchestrator, "com.sonarsource.tsql", "sonar-tsql-plugin", "sonar.tsqlplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.xml", "sonar-xml-plugin", "sonar.xmlplugin.version");
-    addPlugin(orchestrator, "org.sonarsource.slang", "sonar-ruby-plugin", "sonar.rubyplugin.version");
-    addPlugin(orchestrator, "com.sonarsource.go", "sonar-go-enterprise-plugin", "sonar.goplugin-enterprise.version");
-    addPlugin(orchestrator, System.getProperty("go.groupid", "org.sonarsource.go"), "sonar-go-plugin", "sonar.goplugin.version");
-    addPlugin(orchestrator, "com.sonarsource.dre", "sonar-dre-plugin", "sonar.dreplugin.version");
+    var plugins = new ArrayList<MavenLocation>();
+    addPlugin(plugins, "com.sonarsource.cpp", "sonar-cfamily-plugin", "sonar.cfamilyplugin.version");
+    addPlugin(plugins, "com.sonarsource.plsql", "sonar-plsql-plugin", "sonar.plsqlplugin.version");
+    addPlugin(plugins, "org.sonarsource.css", "sonar-css-plugin", "sonar.css.version", "NONE");
+    addPlugin(plugins, "org.sonarsource.dotnet", "sonar-csharp-plugin", "sonar.csharpplugin.version", "DEV");
+    addPlugin(plugins, "org.sonarsource.dotnet", "sonar-vbnet-plugin", "sonar.vbnetplugin.version", "DEV");
+    addPlugin(plugins, "org.sonarsource.iac", "sonar-iac-plugin", "sonar.iacplugin.version");
+    addPlugin(plugins, "com.sonarsource.iac", "sonar-iac-enterprise-plugin", "sonar.iacplugin-enterprise.version");
+    addPlugin(plugins, "org.sonarsource.java", "sonar-java-plugin", "sonar.javaplugin.version");
+    addPlugin(plugins, "org.sonarsource.javascript", "sonar-javascript-plugin", "sonar.javascriptplugin.version");
+    addPlugin(plugins, "org.sonarsource.php", "sonar-php-plugin", "sonar.phpplugin.version");
+    addPlugin(plugins, "org.sonarsource.python", "sonar-python-plugin", "sonar.pythonplugin.version");
+    addPlugin(plugins, "org.sonarsource.text", "sonar-text-plugin", "sonar.textplugin.version");
+    addPlugin(plugins, "com.sonarsource.tsql", "sonar-tsql-plugin", "sonar.tsqlplugin.version");
+    addPlugin(plugins, "org.sonarsource.xml", "sonar-xml-plugin", "sonar.xmlplugin.version");
+    addPlugin(plugins, "org.sonarsource.slang", "sonar-ruby-plugin", "sonar.rubyplugin.version");
+    addPlugin(plugins, "com.sonarsource.go", "sonar-go-enterprise-plugin", "sonar.goplugin-enterprise.version");
+    addPlugin(plugins, System.getProperty("go.groupid", "org.sonarsource.go"), "sonar-go-plugin", "sonar.goplugin.version");
+    addPlugin(plugins, "com.sonarsource.dre", "sonar-dre-plugin", "sonar.dreplugin.version");
+    PLUGIN_CACHE.resolve(plugins).forEach(orchestrator::addPlugin);
 
     // DO NOT add any additional plugin loading logic here. Everything must be in the YML
     if (!version.contains("8.9")) {
@@ -100,20 +148,75 @@ public class ServerTests implements BeforeAllCallback, AfterAllCallback {
     return orchestrator;
   }
 
+  // SHA-256 of the plugin jars resolved by the plugin cache, by file name
+  static Map<String, String> pluginSha256ByFileName() {
+    return PLUGIN_CACHE.sha256ByFileName();
+  }
+
   private static Orchestrator createOrchestrator() {
     return orchestratorBuilder().build();
   }
 
-  private static void addPlugin(OrchestratorExtensionBuilder orchestrator, String groupId, String artifactId, String versionProperty) {
-    addPlugin(orchestrator, groupId, artifactId, versionProperty, "LATEST_RELEASE");
+  private static Orchestrator createOrchestrator(Map<String, String> serverProperties) {
+    var builder = orchestratorBuilder();
+    serverProperties.forEach(builder::setServerProperty);
+    return builder.build();
+  }
+
+  private static OrchestratorLease testLease(ExtensionContext extensionContext) {
+    if (isNoServer(extensionContext)) {
+      throw new IllegalStateException("The test is annotated with @NoServer, but it tries to use the SonarQube server.");
+    }
+    var lease = extensionContext.getStore(NAMESPACE).get(TEST_LEASE, OrchestratorLease.class);
+    if (lease == null) {
+      throw new IllegalStateException("No SonarQube server is leased by " + extensionContext.getDisplayName() + ". The test class is probably missing @ExtendWith({ServerTests.class}).");
+    }
+    return lease;
+  }
+
+  // Secondary servers are shared by their properties, so leasing the same one again returns the same lease
+  private static OrchestratorLease leaseOfTest(ExtensionContext extensionContext) {
+    return serverProperties(extensionContext).map(SECONDARY::lease).orElseGet(() -> classLease(extensionContext));
+  }
+
+  private static OrchestratorLease classLease(ExtensionContext extensionContext) {
+    var lease = extensionContext.getStore(NAMESPACE).get(OrchestratorLease.class, OrchestratorLease.class);
+    if (lease == null) {
+      throw new IllegalStateException("No SonarQube server is leased by " + extensionContext.getDisplayName() + ". The test class is probably missing @ExtendWith({ServerTests.class}).");
+    }
+    return lease;
+  }
+
+  private static boolean isNoServer(ExtensionContext extensionContext) {
+    return extensionContext.getRequiredTestMethod().isAnnotationPresent(NoServer.class) || extensionContext.getRequiredTestClass().isAnnotationPresent(NoServer.class);
+  }
+
+  private static Optional<Map<String, String>> serverProperties(ExtensionContext extensionContext) {
+    var annotation = Optional.ofNullable(extensionContext.getRequiredTestMethod().getAnnotation(ServerProperties.class))
+      .or(() -> Optional.ofNullable(extensionContext.getRequiredTestClass().getAnnotation(ServerProperties.class)));
+    return annotation.map(x -> {
+      var properties = new HashMap<String, String>();
+      for (var property : x.value()) {
+        var separator = property.indexOf('=');
+        if (separator < 1) {
+          throw new IllegalArgumentException("@ServerProperties values must be in the key=value format, but was: " + property);
+        }
+        properties.put(property.substring(0, separator), property.substring(separator + 1));
+      }
+      return properties;
+    });
+  }
+
+  private static void addPlugin(List<MavenLocation> plugins, String groupId, String artifactId, String versionProperty) {
+    addPlugin(plugins, groupId, artifactId, versionProperty, "LATEST_RELEASE");
   }
 
-  private static void addPlugin(OrchestratorExtensionBuilder orchestrator, String groupId, String artifactId, String versionProperty, String defaultVersion) {
+  private static void addPlugin(List<MavenLocation> plugins, String groupId, String artifactId, String versionProperty, String defaultVersion) {
     var version = System.getProperty(versionProperty, defaultVersion);
     if (version == null || version.isEmpty() || version.equals("NONE")) {
       return;
     }
-    orchestrator.addPlugin(MavenLocation.of(groupId, artifactId, version));
+    plugins.add(MavenLocation.of(groupId, artifactId, version));
   }
 
   private static Path customRoslynPlugin() {
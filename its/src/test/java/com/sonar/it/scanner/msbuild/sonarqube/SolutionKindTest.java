@@ -36,11 +36,10 @@ import org.sonarqube.ws.Ce;
 import org.sonarqube.ws.Components;
 import org.sonarqube.ws.Issues.Issue;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class SolutionKindTest {
   private static final String SONAR_RULES_PREFIX = "csharpsquid:";
 
@@ -53,8 +52,8 @@ class SolutionKindTest {
   @MSBuildMinVersion(16)
   @MSBuildMaxVersion(17)
   @WorkloadPrerequisite(Workload.XAMARIN_BUILD_TOOLS)
-  void xaml() {
-    var context = AnalysisContext.forServer("XamarinApplication");
+  void xaml(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "XamarinApplication");
     context.runAnalysis();
 
     List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
@@ -81,42 +80,54 @@ class SolutionKindTest {
   @Test
   // We can't build without MsBuild18
   @MSBuildMinVersion(18)
-  void razor_Net9_WithoutSourceGenerators() {
+  void razor_Net9_WithoutSourceGenerators(TestContext testContext) {
     String projectName = "RazorWebApplication.net9.withoutSourceGenerators";
-    validateRazorProject(projectName, "<UseRazorSourceGenerator>false</UseRazorSourceGenerator>");
+    validateRazorProject(testContext, projectName, "<UseRazorSourceGenerator>false</UseRazorSourceGenerator>");
   }
 
   @Test
   // We can't build without MsBuild18
   @MSBuildMinVersion(18)
-  void razor_Net9_WithSourceGenerators() {
+  void razor_Net9_WithSourceGenerators(TestContext testContext) {
     String projectName = "RazorWebApplication.net9.withSourceGenerators";
-    validateRazorProject(projectName, "<UseRazorSourceGenerator>true</UseRazorSourceGenerator>");
+    validateRazorProject(testContext, projectName, "<UseRazorSourceGenerator>true</UseRazorSourceGenerator>");
   }
 
   @Test
   @MSBuildMinVersion(16)
-  void flatProjectStructure() {
-    var context = AnalysisContext.forServer("CSharpAllFlat");
+  void flatProjectStructure(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpAllFlat");
     context.build.addArgument("CSharpAllFlat.sln");
     context.runAnalysis();
     var expectedComponent = new ArrayList<>(List.of(context.projectKey + ":Common.cs"));
-    if (ORCHESTRATOR.getServer().version().isGreaterThan(9, 9)) {
+    if (context.orchestrator.getServer().version().isGreaterThan(9, 9)) {
       // Multilanguage support is enabled and NuGet.Config is also picked up
       expectedComponent.add(context.projectKey + ":NuGet.Config");
     }
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
+    assertThat(TestUtils.listComponents(context.orchestrator, context.projectKey))
       .extracting(Components.Component::getKey)
       .containsExactlyInAnyOrder(expectedComponent.toArray(new String[]{}));
   }
 
   @Test
-  void sharedFiles() {
-    var context = AnalysisContext.forServer("CSharpSharedFiles");
+  @MSBuildMinVersion(16)
+  void flatProjectStructure_ComponentsOfOneLanguage(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpAllFlat");
+    context.build.addArgument("CSharpAllFlat.sln");
+    context.runAnalysis();
+
+    // NuGet.Config is also a component when multi-language analysis is supported, it is not a C# file
+    assertThat(ComponentWalker.of(context.orchestrator, context.projectKey).languages("cs").keys())
+      .containsExactly(context.projectKey + ":Common.cs");
+  }
+
+  @Test
+  void sharedFiles(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpSharedFiles");
     context.begin.setDebugLogs();
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
+    assertThat(TestUtils.listComponents(context.orchestrator, context.projectKey))
       .extracting(Components.Component::getKey)
       .containsExactlyInAnyOrder(
         context.projectKey + ":Common.cs",
@@ -125,11 +136,11 @@ class SolutionKindTest {
   }
 
   @Test
-  void sharedProjectType() {
-    var context = AnalysisContext.forServer("CSharpSharedProjectType");
+  void sharedProjectType(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharpSharedProjectType");
     context.runAnalysis();
 
-    assertThat(TestUtils.listComponents(ORCHESTRATOR, context.projectKey))
+    assertThat(TestUtils.listComponents(context.orchestrator, context.projectKey))
       .extracting(Components.Component::getKey)
       .containsExactlyInAnyOrder(
         context.projectKey + ":SharedProject/TestEventInvoke.cs",
@@ -140,12 +151,12 @@ class SolutionKindTest {
   @Test
   @MSBuildMinVersion(16)
   @EnabledOnOs(OS.WINDOWS)
-  void framework48() {
-    var context = AnalysisContext.forServer("CSharp.Framework.4.8");
+  void framework48(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharp.Framework.4.8");
     context.build.withNuGetRestore();
     var result = context.runAnalysis();
 
-    assertUIWarnings(result);
+    assertUIWarnings(context, result);
     List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
     assertThat(issues).hasSize(2)
       .extracting(Issue::getRule, Issue::getComponent)
@@ -157,37 +168,37 @@ class SolutionKindTest {
   @Test
   // dotnet sdk tests should run only on VS 2022 and above
   @MSBuildMinVersion(17)
-  void sdk8() {
-    validateCSharpSdk("CSharp.SDK.8");
+  void sdk8(TestContext testContext) {
+    validateCSharpSdk(testContext, "CSharp.SDK.8");
   }
 
   @Test
   // dotnet sdk tests should run only on VS 2022 and above
   @MSBuildMinVersion(17)
-  void sdk9() {
-    validateCSharpSdk("CSharp.SDK.9");
+  void sdk9(TestContext testContext) {
+    validateCSharpSdk(testContext, "CSharp.SDK.9");
   }
 
   @Test
   // dotnet sdk tests should run only on VS 2022
   @MSBuildMinVersion(17)
-  void net8_NoAnalysisWarnings() {
-    var context = AnalysisContext.forServer("CSharp.SDK.8");
+  void net8_NoAnalysisWarnings(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "CSharp.SDK.8");
     var result = context.runAnalysis();
 
     assertThat(result.logs()).doesNotContain("Failed to parse properties from the environment variable 'SONARQUBE_SCANNER_PARAMS'");
-    assertUIWarnings(result);
+    assertUIWarnings(context, result);
   }
 
   @Test
   // dotnet sdk tests should run only on VS 2022 and above
   @MSBuildMinVersion(18)
-  void sdkLatest() {
-    validateCSharpSdk("CSharp.SDK.Latest");
+  void sdkLatest(TestContext testContext) {
+    validateCSharpSdk(testContext, "CSharp.SDK.Latest");
   }
 
-  private void validateCSharpSdk(String folderName) {
-    var context = AnalysisContext.forServer(folderName);
+  private void validateCSharpSdk(TestContext testContext, String folderName) {
+    var context = AnalysisContext.forServer(testContext, folderName);
     context.runAnalysis();
 
     List<Issue> issues = TestUtils.projectIssues(context.orchestrator, context.projectKey);
@@ -201,12 +212,12 @@ class SolutionKindTest {
     // which is currently not imported due to the fact that the generated code Index.cshtml.g.cs is in the object folder.
   }
 
-  private void assertUIWarnings(AnalysisResult result) {
+  private void assertUIWarnings(AnalysisContext context, AnalysisResult result) {
     // AnalysisWarningsSensor was implemented starting from analyzer version 8.39.0.47922 (https://github.com/SonarSource/sonar-dotnet-enterprise/commit/39baabb01799aa1945ac5c80d150f173e6ada45f)
     // So it's available from SQ 9.9 onwards
-    var version = ORCHESTRATOR.getServer().version();
+    var version = context.orchestrator.getServer().version();
     if (version.isGreaterThanOrEquals(9, 9)) {
-      var warnings = TestUtils.getAnalysisWarningsTask(ORCHESTRATOR, result.end());
+      var warnings = TestUtils.getAnalysisWarningsTask(context.orchestrator, result.end());
       assertThat(warnings.getStatus()).isEqualTo(Ce.TaskStatus.SUCCESS);
       if (version.getMajor() == 9) {
         assertThat(warnings.getWarningsList())
@@ -228,8 +239,8 @@ class SolutionKindTest {
     }
   }
 
-  private void validateRazorProject(String project, String textToLookFor) {
-    var context = AnalysisContext.forServer(project);
+  private void validateRazorProject(TestContext testContext, String project, String textToLookFor) {
+    var context = AnalysisContext.forServer(testContext, project);
     assertProjectFileContains(context, textToLookFor);
     context.runAnalysis();
 
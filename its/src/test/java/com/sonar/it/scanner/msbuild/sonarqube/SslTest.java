@@ -27,7 +27,9 @@ import com.sonar.it.scanner.msbuild.utils.OSPlatform;
 import com.sonar.it.scanner.msbuild.utils.ScannerClassifier;
 import com.sonar.it.scanner.msbuild.utils.SslExceptionMessages;
 import com.sonar.it.scanner.msbuild.utils.SslUtils;
+import com.sonar.it.scanner.msbuild.utils.TestContext;
 import com.sonar.it.scanner.msbuild.utils.TestUtils;
+import com.sonar.it.scanner.msbuild.utils.TestWeightExtension;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -47,12 +49,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
-import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.ORCHESTRATOR;
+import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.orchestrator;
 import static com.sonar.it.scanner.msbuild.sonarqube.ServerTests.serverSupportsProvisioning;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class SslTest {
   private static final Logger LOG = LoggerFactory.getLogger(SslTest.class);
   private static final String SSL_KEYSTORE_PASSWORD_ENV = "SSL_KEYSTORE_PASSWORD";
@@ -104,9 +106,9 @@ class SslTest {
    * <p>See the init method for more details.
    */
   @Test
-  void trustedSelfSignedCertificate() throws IOException {
-    try (var server = initSslTestAndServer(keystorePath, keystorePassword)) {
-      var context = AnalysisContext.forServer("ProjectUnderTest").setEnvironmentVariable("SONAR_SCANNER_OPTS",
+  void trustedSelfSignedCertificate(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServer(testContext, keystorePath, keystorePassword)) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest").setEnvironmentVariable("SONAR_SCANNER_OPTS",
         "-Djavax.net.ssl.trustStore=" + keystorePath.replace('\\', '/') + " -Djavax.net.ssl.trustStorePassword=" + keystorePassword);
       context.begin.setProperty("sonar.host.url", server.getUrl());
       context.begin.setDebugLogs();
@@ -124,15 +126,15 @@ class SslTest {
   @Test
   // The javax.net.ssl.trustStoreType=Windows-ROOT is not valid on Unix
   @EnabledOnOs(OS.WINDOWS)
-  void trustedSelfSignedCertificate_WindowsRoot() throws IOException {
-    try (var server = initSslTestAndServer(keystorePath, keystorePassword)) {
-      var context = AnalysisContext.forServer("ProjectUnderTest", ScannerClassifier.NET_FRAMEWORK);
+  void trustedSelfSignedCertificate_WindowsRoot(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServer(testContext, keystorePath, keystorePassword)) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest", ScannerClassifier.NET_FRAMEWORK);
       context.begin
         .setProperty("sonar.host.url", server.getUrl())
         .setDebugLogs();
 
       var logs = context.runAnalysis().end().getLogs();
-      if (serverSupportsProvisioning()) {
+      if (serverSupportsProvisioning(context.orchestrator)) {
         assertThat(logs)
           .contains("Args: -Djavax.net.ssl.trustStoreType=Windows-ROOT");
         assertThat(TestUtils.scannerEngineInputJson(context)).hasAllSecretsRedacted();
@@ -145,14 +147,14 @@ class SslTest {
   }
 
   @Test
-  void trustedSelfSignedCertificate_ExistingValueInScannerOpts() throws IOException {
-    try (var server = initSslTestAndServer(keystorePath, keystorePassword)) {
-      var context = AnalysisContext.forServer("ProjectUnderTest", ScannerClassifier.NET).setEnvironmentVariable("SONAR_SCANNER_OPTS", "-Xmx2048m");
+  void trustedSelfSignedCertificate_ExistingValueInScannerOpts(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServer(testContext, keystorePath, keystorePassword)) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest", ScannerClassifier.NET).setEnvironmentVariable("SONAR_SCANNER_OPTS", "-Xmx2048m");
       context.begin
         .setProperty("sonar.host.url", server.getUrl())
         .setDebugLogs();
       var logs = context.runAnalysis().end().getLogs();
-      if (serverSupportsProvisioning()) {
+      if (serverSupportsProvisioning(context.orchestrator)) {
         assertThat(logs).contains("Args: -Xmx2048m");
         assertThat(TestUtils.scannerEngineInputJson(context)).hasAllSecretsRedacted();
       } else {
@@ -162,11 +164,11 @@ class SslTest {
   }
 
   @Test
-  void untrustedSelfSignedCertificate() {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void untrustedSelfSignedCertificate(TestContext testContext) {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin.setProperty("sonar.host.url", server.getUrl());
-      var result = context.begin.execute(ORCHESTRATOR);
+      var result = context.begin.execute(context.orchestrator);
 
       assertFalse(result.isSuccess());
       assertThat(result.getLogs())
@@ -176,9 +178,9 @@ class SslTest {
   }
 
   @Test
-  void selfSignedCertificateInGivenTrustStore() throws IOException {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void selfSignedCertificateInGivenTrustStore(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setProperty("sonar.scanner.truststorePassword", server.getKeystorePassword())
@@ -191,13 +193,13 @@ class SslTest {
   }
 
   @Test
-  void selfSignedCertificateInGivenTrustStore_EndStepPasswordProvidedInEnv() throws IOException {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42")) {
+  void selfSignedCertificateInGivenTrustStore_EndStepPasswordProvidedInEnv(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42")) {
       var passwordEnvValue = server.getKeystorePassword();
       if (OSPlatform.isWindows()) {
         passwordEnvValue = "\"" + passwordEnvValue + "\"";
       }
-      var context = AnalysisContext.forServer("ProjectUnderTest")
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest")
         .setEnvironmentVariable("SONAR_SCANNER_OPTS", " -Djavax.net.ssl.trustStorePassword=" + passwordEnvValue);
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
@@ -206,7 +208,7 @@ class SslTest {
         .setDebugLogs();
       var logs = context.runAnalysis().end().getLogs();
 
-      if (serverSupportsProvisioning()) {
+      if (serverSupportsProvisioning(context.orchestrator)) {
         assertThat(logs)
           .containsPattern("Args: -Djavax.net.ssl.trustStore=\"?" + server.getKeystorePath().replace('\\', '/'))
           .doesNotContain(server.getKeystorePassword());
@@ -220,9 +222,9 @@ class SslTest {
   }
 
   @Test
-  void selfSignedCertificateInGivenTrustStore_PasswordNotProvidedInEndStep() {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void selfSignedCertificateInGivenTrustStore_PasswordNotProvidedInEndStep(TestContext testContext) {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setProperty("sonar.scanner.truststorePassword", server.getKeystorePassword())
@@ -235,9 +237,9 @@ class SslTest {
   }
 
   @Test
-  void scannerEngineJarPath_PassedAsAbsolute() throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42")) {
-      var context = AnalysisContext.forServer("Empty");
+  void scannerEngineJarPath_PassedAsAbsolute(TestContext testContext) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42")) {
+      var context = AnalysisContext.forServer(testContext, "Empty");
       var relativeKeyStorePath = context.projectDir.resolve(".sonarqube").relativize(Path.of(server.getKeystorePath()).toAbsolutePath()).toString();
       context.begin
         .setProperty("sonar.scanner.truststorePath", relativeKeyStorePath)
@@ -246,7 +248,7 @@ class SslTest {
         .setProperty("sonar.userHome", context.projectDir.toAbsolutePath().toString())
         .setDebugLogs();
 
-      context.begin.execute(ORCHESTRATOR);
+      context.begin.execute(context.orchestrator);
 
       var doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(context.projectDir.resolve(".sonarqube").resolve("conf").resolve("SonarQubeAnalysisConfig.xml").toFile());
       String trustStorePath = XPathFactory.newInstance().newXPath().evaluate("//*[local-name()='Property' and @Name='javax.net.ssl.trustStore']/text()", doc);
@@ -259,9 +261,9 @@ class SslTest {
   // We don't support spaces in the truststore path and password on Unix
   // Running this test on Unix would always fail
   @EnabledOnOs(OS.WINDOWS)
-  void selfSignedCertificateInGivenTrustStore_PathAndPasswordWithSpace() throws IOException {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd w1th sp@ce", Path.of("sub", "folder with spaces"))) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void selfSignedCertificateInGivenTrustStore_PathAndPasswordWithSpace(TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd w1th sp@ce", Path.of("sub", "folder with spaces"))) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setProperty("sonar.scanner.truststorePassword", server.getKeystorePassword())
@@ -274,14 +276,14 @@ class SslTest {
   }
 
   @Test
-  void unmatchedDomainNameInCertificate() {
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42", Path.of(""), "not-localhost", "keystore.p12")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void unmatchedDomainNameInCertificate(TestContext testContext) {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42", Path.of(""), "not-localhost", "keystore.p12")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setProperty("sonar.scanner.truststorePassword", server.getKeystorePassword())
         .setProperty("sonar.host.url", server.getUrl());
-      var result = context.begin.execute(ORCHESTRATOR);
+      var result = context.begin.execute(context.orchestrator);
 
       assertFalse(result.isSuccess());
       assertThat(result.getLogs())
@@ -291,11 +293,11 @@ class SslTest {
   }
 
   @Test
-  void truststorePathNotFound() {
+  void truststorePathNotFound(TestContext testContext) {
     var trustStorePath = Paths.get("does", "not", "exist.pfx").toAbsolutePath().toString();
-    var context = AnalysisContext.forServer("ProjectUnderTest");
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
     context.begin.setProperty("sonar.scanner.truststorePath", trustStorePath);
-    var result = context.begin.execute(ORCHESTRATOR);
+    var result = context.begin.execute(context.orchestrator);
 
     assertFalse(result.isSuccess());
     assertThat(result.getLogs())
@@ -303,13 +305,13 @@ class SslTest {
   }
 
   @Test
-  void incorrectPassword() {
-    var trustStorePath = createKeyStore("changeit", "not-localhost");
-    var context = AnalysisContext.forServer("ProjectUnderTest");
+  void incorrectPassword(TestContext testContext) {
+    var trustStorePath = createKeyStore(testContext, "changeit", "not-localhost");
+    var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
     var result = context.begin
       .setProperty("sonar.scanner.truststorePath", trustStorePath)
       .setProperty("sonar.scanner.truststorePassword", "notchangeit")
-      .execute(ORCHESTRATOR);
+      .execute(context.orchestrator);
 
     assertFalse(result.isSuccess());
     assertThat(result.getLogs())
@@ -319,10 +321,10 @@ class SslTest {
 
   @ParameterizedTest
   @ValueSource(strings = {"changeit", "sonar"})
-  void defaultTruststoreExist(String defaultPassword) throws IOException {
-    var sonarHome = ContextExtension.currentTempDir().resolve("sonar").toAbsolutePath().toString();
-    try (var server = initSslTestAndServerWithTrustStore(defaultPassword, Path.of("sonar", "ssl"), "truststore.p12")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void defaultTruststoreExist(String defaultPassword, TestContext testContext) throws IOException {
+    var sonarHome = testContext.tempDir().resolve("sonar").toAbsolutePath().toString();
+    try (var server = initSslTestAndServerWithTrustStore(testContext, defaultPassword, Path.of("sonar", "ssl"), "truststore.p12")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.host.url", server.getUrl())
         .setDebugLogs()
@@ -331,7 +333,7 @@ class SslTest {
       var result = validateAnalysis(context, server);
       if (defaultPassword.equals("sonar")) {
         assertThat(result.begin().getLogs()).containsPattern("Could not import the truststore '.*truststore.p12' with the default password at index 0. Reason: .*");
-        if (serverSupportsProvisioning()) {
+        if (serverSupportsProvisioning(context.orchestrator)) {
           assertThat(result.end().getLogs()).containsPattern("WARNING: WARN: Using deprecated default password for truststore '\"?.*truststore.p12\"?'");
         } else {
           assertThat(result.end().getLogs()).containsPattern("Could not import the truststore '\"?.*truststore.p12\"?' with the default password at index 0. Reason: .*");
@@ -342,12 +344,12 @@ class SslTest {
   }
 
   @Test
-  void defaultTruststoreExist_IncorrectPassword() {
-    var sonarHome = ContextExtension.currentTempDir().resolve("sonar").toAbsolutePath().toString();
-    try (var server = initSslTestAndServerWithTrustStore("itchange", Path.of("sonar", "ssl"), "truststore.p12")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void defaultTruststoreExist_IncorrectPassword(TestContext testContext) {
+    var sonarHome = testContext.tempDir().resolve("sonar").toAbsolutePath().toString();
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "itchange", Path.of("sonar", "ssl"), "truststore.p12")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin.setProperty("sonar.userHome", sonarHome);
-      var result = context.begin.execute(ORCHESTRATOR);
+      var result = context.begin.execute(context.orchestrator);
 
       assertFalse(result.isSuccess());
       assertThat(result.getLogs())
@@ -357,10 +359,10 @@ class SslTest {
   }
 
   @Test
-  void defaultTruststoreExist_ProvidedPassword() throws IOException {
-    var sonarHome = ContextExtension.currentTempDir().resolve("sonar").toAbsolutePath().toString();
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42", Path.of("sonar", "ssl"), "truststore.p12")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void defaultTruststoreExist_ProvidedPassword(TestContext testContext) throws IOException {
+    var sonarHome = testContext.tempDir().resolve("sonar").toAbsolutePath().toString();
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42", Path.of("sonar", "ssl"), "truststore.p12")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setEnvironmentVariable("SONAR_USER_HOME", sonarHome)
         .setProperty("sonar.host.url", server.getUrl())
@@ -373,10 +375,10 @@ class SslTest {
   }
 
   @Test
-  void defaultTruststoreExist_ProvidedPassword_UserHomeProperty() throws IOException {
-    var sonarHome = ContextExtension.currentTempDir().resolve("sonar").toAbsolutePath().toString();
-    try (var server = initSslTestAndServerWithTrustStore("p@ssw0rd42", Path.of("sonar", "ssl"), "truststore.p12")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void defaultTruststoreExist_ProvidedPassword_UserHomeProperty(TestContext testContext) throws IOException {
+    var sonarHome = testContext.tempDir().resolve("sonar").toAbsolutePath().toString();
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "p@ssw0rd42", Path.of("sonar", "ssl"), "truststore.p12")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.host.url", server.getUrl())
         .setProperty("sonar.scanner.truststorePassword", server.getKeystorePassword())
@@ -390,9 +392,9 @@ class SslTest {
 
   @ParameterizedTest
   @ValueSource(strings = {"changeit", "sonar"})
-  void truststorePasswordNotProvided_UseDefaultPassword(String defaultPassword) throws IOException {
-    try (var server = initSslTestAndServerWithTrustStore(defaultPassword)) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void truststorePasswordNotProvided_UseDefaultPassword(String defaultPassword, TestContext testContext) throws IOException {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, defaultPassword)) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setDebugLogs()
@@ -407,13 +409,13 @@ class SslTest {
   }
 
   @Test
-  void truststorePasswordNotProvided_UseDefaultPassword_Fail() {
-    try (var server = initSslTestAndServerWithTrustStore("itchange")) {
-      var context = AnalysisContext.forServer("ProjectUnderTest");
+  void truststorePasswordNotProvided_UseDefaultPassword_Fail(TestContext testContext) {
+    try (var server = initSslTestAndServerWithTrustStore(testContext, "itchange")) {
+      var context = AnalysisContext.forServer(testContext, "ProjectUnderTest");
       context.begin
         .setProperty("sonar.scanner.truststorePath", server.getKeystorePath())
         .setProperty("sonar.host.url", server.getUrl());
-      var result = context.begin.execute(ORCHESTRATOR);
+      var result = context.begin.execute(context.orchestrator);
 
       assertFalse(result.isSuccess());
       assertThat(result.getLogs())
@@ -422,25 +424,25 @@ class SslTest {
     }
   }
 
-  private HttpsReverseProxy initSslTestAndServerWithTrustStore(String trustStorePassword) {
-    return initSslTestAndServerWithTrustStore(trustStorePassword, Path.of(""));
+  private HttpsReverseProxy initSslTestAndServerWithTrustStore(TestContext testContext, String trustStorePassword) {
+    return initSslTestAndServerWithTrustStore(testContext, trustStorePassword, Path.of(""));
   }
 
-  private HttpsReverseProxy initSslTestAndServerWithTrustStore(String trustStorePassword, Path subFolder) {
-    return initSslTestAndServerWithTrustStore(trustStorePassword, subFolder, "keystore.p12");
+  private HttpsReverseProxy initSslTestAndServerWithTrustStore(TestContext testContext, String trustStorePassword, Path subFolder) {
+    return initSslTestAndServerWithTrustStore(testContext, trustStorePassword, subFolder, "keystore.p12");
   }
 
-  private HttpsReverseProxy initSslTestAndServerWithTrustStore(String trustStorePassword, Path subFolder, String keystoreName) {
-    return initSslTestAndServerWithTrustStore(trustStorePassword, subFolder, "localhost", keystoreName);
+  private HttpsReverseProxy initSslTestAndServerWithTrustStore(TestContext testContext, String trustStorePassword, Path subFolder, String keystoreName) {
+    return initSslTestAndServerWithTrustStore(testContext, trustStorePassword, subFolder, "localhost", keystoreName);
   }
 
-  private HttpsReverseProxy initSslTestAndServerWithTrustStore(String trustStorePassword, Path subFolder, String host, String keystoreName) {
-    var trustStorePath = createKeyStore(trustStorePassword, subFolder, host, keystoreName);
-    return initSslTestAndServer(trustStorePath, trustStorePassword);
+  private HttpsReverseProxy initSslTestAndServerWithTrustStore(TestContext testContext, String trustStorePassword, Path subFolder, String host, String keystoreName) {
+    var trustStorePath = createKeyStore(testContext, trustStorePassword, subFolder, host, keystoreName);
+    return initSslTestAndServer(testContext, trustStorePath, trustStorePassword);
   }
 
-  private HttpsReverseProxy initSslTestAndServer(String trustStorePath, String trustStorePassword) {
-    var server = new HttpsReverseProxy(ORCHESTRATOR.getServer().getUrl(), trustStorePath, trustStorePassword);
+  private HttpsReverseProxy initSslTestAndServer(TestContext testContext, String trustStorePath, String trustStorePassword) {
+    var server = new HttpsReverseProxy(orchestrator(testContext).getServer().getUrl(), trustStorePath, trustStorePassword);
     try {
       server.start();
     } catch (Exception ex) {
@@ -458,7 +460,7 @@ class SslTest {
       trustStorePath = "\"" + trustStorePath + "\"";
       trustStorePassword = "\"" + trustStorePassword + "\"";
     }
-    if (serverSupportsProvisioning()) {
+    if (serverSupportsProvisioning(context.orchestrator)) {
       assertThat(logs)
         .contains("Args: ")
         .contains("-Djavax.net.ssl.trustStore=" + trustStorePath)
@@ -481,12 +483,12 @@ class SslTest {
     return result;
   }
 
-  private String createKeyStore(String password, String host) {
-    return createKeyStore(password, Path.of(""), host, "keystore.pfx");
+  private String createKeyStore(TestContext testContext, String password, String host) {
+    return createKeyStore(testContext, password, Path.of(""), host, "keystore.pfx");
   }
 
-  private String createKeyStore(String password, Path subFolder, String host, String keystoreName) {
-    var keystoreLocation = ContextExtension.currentTempDir().resolve(subFolder.resolve(keystoreName)).toAbsolutePath();
+  private String createKeyStore(TestContext testContext, String password, Path subFolder, String host, String keystoreName) {
+    var keystoreLocation = testContext.tempDir().resolve(subFolder.resolve(keystoreName)).toAbsolutePath();
     LOG.info("Creating keystore at {}", keystoreLocation);
     return SslUtils.generateKeyStore(keystoreLocation, host, password);
   }
@@ -37,14 +37,14 @@ import org.sonarqube.ws.client.settings.SetRequest;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class TelemetryTest {
 
   @Test
   @MSBuildMinVersion(16)
   @ServerMinVersion("2025.3")
-  void telemetry_telemetryFiles_areCorrect_CS() {
-    var context = AnalysisContext.forServer(Paths.get("Telemetry", "Telemetry").toString());
+  void telemetry_telemetryFiles_areCorrect_CS(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, Paths.get("Telemetry", "Telemetry").toString());
     context.orchestrator.getServer().provisionProject(context.projectKey, context.projectKey);
     var settings = TestUtils.newWsClient(context.orchestrator).settings();
     java.util.function.Supplier<SetRequest> request = () -> new SetRequest().setComponent(context.projectKey);
@@ -119,8 +119,8 @@ class TelemetryTest {
   @Test
   @MSBuildMinVersion(16)
   @ServerMinVersion("2025.3")
-  void telemetry_telemetryFiles_areCorrect_VB() {
-    var result = runAnalysis("TelemetryVB");
+  void telemetry_telemetryFiles_areCorrect_VB(TestContext testContext) {
+    var result = runAnalysis(testContext, "TelemetryVB");
     assertThatEndLogMetrics(result.end()).satisfiesExactlyInAnyOrder(
       x -> assertThat(x).matches("vbnet\\.vbnet\\.language_version\\.visualbasic(15|16|17_13)=3"),
       x -> assertThat(x).isEqualTo("dotnetenterprise.s4net.params.sonar_scanner_skipjreprovisioning.source=CLI"),
@@ -152,8 +152,8 @@ class TelemetryTest {
   @Test
   @MSBuildMinVersion(16)
   @ServerMinVersion("2025.3")
-  void telemetry_telemetryFiles_areCorrect_CSVB_Mixed() {
-    var result = runAnalysis("TelemetryCSVBMixed");
+  void telemetry_telemetryFiles_areCorrect_CSVB_Mixed(TestContext testContext) {
+    var result = runAnalysis(testContext, "TelemetryCSVBMixed");
     assertThatEndLogMetrics(result.end()).satisfiesExactlyInAnyOrder(
       x -> assertThat(x).matches("vbnet\\.vbnet\\.language_version\\.visualbasic(15|16|17_13)=1"),
       x -> assertThat(x).isEqualTo("dotnetenterprise.s4net.params.sonar_scanner_skipjreprovisioning.source=CLI"),
@@ -195,8 +195,8 @@ class TelemetryTest {
   @EnabledOnOs(OS.WINDOWS) // Requires .NET Framework 4.8 reference assemblies, only available on Windows
   @MSBuildMinVersion(18)
   @ServerMinVersion("2025.3")
-  void telemetry_multiTargetFramework_tfmsAreCorrectlyRecorded() {
-    var context = AnalysisContext.forServer(Paths.get("Telemetry", "TelemetryMultiTarget").toString());
+  void telemetry_multiTargetFramework_tfmsAreCorrectlyRecorded(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, Paths.get("Telemetry", "TelemetryMultiTarget").toString());
     context.begin.setDebugLogs();
     var result = context.runAnalysis();
 
@@ -237,8 +237,8 @@ class TelemetryTest {
   }
 
   @NotNull
-  private static AnalysisResult runAnalysis(String telemetryProject) {
-    var context = AnalysisContext.forServer(Paths.get("Telemetry", telemetryProject).toString());
+  private static AnalysisResult runAnalysis(TestContext testContext, String telemetryProject) {
+    var context = AnalysisContext.forServer(testContext, Paths.get("Telemetry", telemetryProject).toString());
     context.begin.setDebugLogs();
     var result = context.runAnalysis();
     assertThat(result.isSuccess()).isTrue();
@@ -246,8 +246,6 @@ class TelemetryTest {
   }
 
   private static AbstractListAssert<?, List<? extends String>, String, ObjectAssert<String>> assertThatEndLogMetrics(BuildResult result) {
-    final String metricLog = "^[0-9.:]*  DEBUG: Adding metric: ";
-    var endLogs = result.getLogsLines(x -> x.matches(metricLog + ".*"));
-    return assertThat(endLogs).map(x -> x.replaceFirst(metricLog, ""));
+    return assertThat(ScannerLog.details(result, ScannerLogEvent.Kind.METRIC_ADDED));
   }
 }
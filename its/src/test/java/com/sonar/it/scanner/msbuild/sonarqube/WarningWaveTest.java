@@ -29,13 +29,13 @@ import java.util.List;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith({ServerTests.class, ContextExtension.class})
+@ExtendWith({TestWeightExtension.class, ServerTests.class, ContextExtension.class})
 class WarningWaveTest {
 
   @Test
   @MSBuildMinVersion(17)
-  void warningWave_CS8981_isRaised() {
-    var context = AnalysisContext.forServer("WarningWaveTest");
+  void warningWave_CS8981_isRaised(TestContext testContext) {
+    var context = AnalysisContext.forServer(testContext, "WarningWaveTest");
     var result = context.runAnalysis();
 
     assertThat(result.isSuccess()).isTrue();
@@ -23,14 +23,11 @@ import com.sonar.it.scanner.msbuild.sonarcloud.CloudConstants;
 import com.sonar.it.scanner.msbuild.sonarqube.ServerTests;
 import com.sonar.orchestrator.Orchestrator;
 import java.nio.file.Path;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.failureDescription;
 
 public class AnalysisContext {
-  static final Logger LOG = LoggerFactory.getLogger(AnalysisContext.class);
-
   public final Orchestrator orchestrator; // Can be null for Cloud
   public final String projectKey;
   public final Path projectDir;
@@ -38,28 +35,30 @@ public class AnalysisContext {
   public final ScannerCommand begin;
   public final BuildCommand build;
   public final ScannerCommand end;
+  private final AnalysisDiagnostics diagnostics;
   private boolean projectCreated;
 
-  public AnalysisContext(Orchestrator orchestrator, ScannerClassifier classifier, String directoryName, String token) {
+  public AnalysisContext(Orchestrator orchestrator, ScannerClassifier classifier, String directoryName, String token, TestContext testContext) {
     this.orchestrator = orchestrator;
-    this.projectKey = ContextExtension.currentTestName();
-    this.projectDir = TestUtils.projectDir(ContextExtension.currentTempDir(), directoryName);
+    this.diagnostics = testContext.diagnostics();
+    this.projectKey = testContext.testName();
+    this.projectDir = TestUtils.projectDir(testContext.tempDir(), directoryName);
     this.token = token;
     begin = ScannerCommand.createBeginStep(classifier, token, projectDir, projectKey);
-    build = new BuildCommand(projectDir);
+    build = new BuildCommand(projectDir, BuildServerPool.of(testContext));
     end = ScannerCommand.createEndStep(classifier, token, projectDir);
   }
 
-  public static AnalysisContext forServer(String directoryName) {
-    return forServer(directoryName, ScannerClassifier.NET);
+  public static AnalysisContext forServer(TestContext testContext, String directoryName) {
+    return forServer(testContext, directoryName, ScannerClassifier.NET);
   }
 
-  public static AnalysisContext forServer(String directoryName, ScannerClassifier classifier) {
-    return new AnalysisContext(ServerTests.ORCHESTRATOR, classifier, directoryName, ServerTests.token());
+  public static AnalysisContext forServer(TestContext testContext, String directoryName, ScannerClassifier classifier) {
+    return new AnalysisContext(ServerTests.orchestrator(testContext), classifier, directoryName, ServerTests.token(testContext), testContext);
   }
 
-  public static AnalysisContext forCloud(String directoryName) {
-    var context = new AnalysisContext(null, ScannerClassifier.NET, directoryName, CloudConstants.SONARCLOUD_TOKEN);
+  public static AnalysisContext forCloud(TestContext testContext, String directoryName) {
+    var context = new AnalysisContext(null, ScannerClassifier.NET, directoryName, CloudConstants.SONARCLOUD_TOKEN, testContext);
     context.begin
       .setOrganization(CloudConstants.SONARCLOUD_ORGANIZATION)
       .setProperty("sonar.scanner.sonarcloudUrl", CloudConstants.SONARCLOUD_URL)
@@ -91,29 +90,27 @@ public class AnalysisContext {
 
   public AnalysisResult runAnalysis() {
     var result = runAnalysisInternal();
-    assertThat(result.isSuccess()).describedAs("Analysis END step failed. Logs: " + result.logs()).isTrue();
+    assertThat(result.isSuccess()).describedAs(failureDescription("Analysis END step failed.", result)).isTrue();
     return result;
   }
 
   public AnalysisResult runFailedAnalysis() {
     var result = runAnalysisInternal();
-    assertThat(result.isSuccess()).describedAs("Analysis END step should have failed, but didn't. Logs: " + result.logs()).isFalse();
+    assertThat(result.isSuccess()).describedAs(failureDescription("Analysis END step should have failed, but didn't.", result)).isFalse();
     return result;
   }
 
   private AnalysisResult runAnalysisInternal() {
     var beginResult = begin.execute(orchestrator);
-    assertThat(beginResult.isSuccess()).describedAs("Analysis BEGIN step failed. Logs: " + beginResult.getLogs()).isTrue();
+    assertThat(beginResult.isSuccess()).describedAs(failureDescription("Analysis BEGIN step failed.", beginResult)).isTrue();
     var buildResult = build.execute();
     var endResult = end.execute(orchestrator);
-    if (endResult.isSuccess()) {
-      if (orchestrator != null) {
-        TestUtils.dumpComponentList(orchestrator, projectKey);
-        TestUtils.dumpProjectIssues(orchestrator, projectKey);
-      }
-    } else {
-      LOG.warn("End step was not successful - skipping dumping issues data");
+    // Components and issues are dumped only if the test fails
+    if (endResult.isSuccess() && orchestrator != null) {
+      diagnostics.record(orchestrator, projectKey);
     }
-    return new AnalysisResult(beginResult, buildResult, endResult);
+    var result = new AnalysisResult(beginResult, buildResult, endResult);
+    ProcessSampler.report(projectKey, result.processStats());
+    return result;
   }
 }
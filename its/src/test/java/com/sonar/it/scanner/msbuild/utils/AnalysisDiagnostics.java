@@ -0,0 +1,70 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Projects successfully analyzed by a single test. Nothing is requested from the server while the test runs: components and issues of
+// these projects are only dumped to the log by ContextExtension when the test fails.
+public final class AnalysisDiagnostics {
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisDiagnostics.class);
+
+  private final Set<Project> projects = ConcurrentHashMap.newKeySet();
+
+  void record(Orchestrator orchestrator, String projectKey) {
+    projects.add(new Project(orchestrator, projectKey));
+  }
+
+  // Each dump is logged as a single message, so that dumps running in parallel don't interleave
+  void dump(String testName) {
+    var dumps = projects.stream()
+      .flatMap(x -> Stream.of(
+        dumpAsync(testName, () -> "Component keys of " + x.projectKey + ":" + lines(ComponentWalker.of(x.orchestrator, x.projectKey).keys().stream())),
+        dumpAsync(testName, () -> "Issues of " + x.projectKey + ":" + lines(IssueQuery.of(x.orchestrator, x.projectKey).list().stream()
+          .map(issue -> "Key: " + issue.getKey() + "   Rule: " + issue.getRule() + "  Component:" + issue.getComponent())))))
+      .toList();
+    dumps.forEach(CompletableFuture::join);
+  }
+
+  private static CompletableFuture<Void> dumpAsync(String testName, Supplier<String> dump) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        LOG.info("{} failed. {}", testName, dump.get());
+      } catch (RuntimeException ex) {
+        LOG.warn("{} failed, and its diagnostics could not be dumped.", testName, ex);
+      }
+    });
+  }
+
+  private static String lines(Stream<String> lines) {
+    return lines.map(x -> System.lineSeparator() + "  " + x).collect(Collectors.joining());
+  }
+
+  private record Project(Orchestrator orchestrator, String projectKey) {
+  }
+}
@@ -20,6 +20,9 @@
 package com.sonar.it.scanner.msbuild.utils;
 
 import com.sonar.orchestrator.build.BuildResult;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 public record AnalysisResult(BuildResult begin, BuildResult build, BuildResult end) {
   public boolean isSuccess() {
@@ -29,4 +32,12 @@ public record AnalysisResult(BuildResult begin, BuildResult build, BuildResult e
   public String logs() {
     return begin.getLogs() + build.getLogs() + end.getLogs();
   }
+
+  // Wall time, CPU time and peak memory of the begin, build and end steps, see ProcessSampler
+  public List<ProcessStats> processStats() {
+    return Stream.of(begin, build, end)
+      .map(x -> x instanceof SpillingBuildResult spilling ? spilling.getProcessStats() : null)
+      .filter(Objects::nonNull)
+      .toList();
+  }
 }
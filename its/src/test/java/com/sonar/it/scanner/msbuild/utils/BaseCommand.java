@@ -43,6 +43,9 @@ public abstract class BaseCommand<T extends BaseCommand<T>> {
     setEnvironmentVariable(GithubActions.GITHUB_ACTIONS, null);
     setEnvironmentVariable(GithubActions.GITHUB_ACTION, null);
     setEnvironmentVariable(GithubActions.GITHUB_BASE_REF, null);
+    if (LocalNuGetFeed.ENABLED) {
+      setEnvironmentVariable("NUGET_PACKAGES", LocalNuGetFeed.packagesDirectory());
+    }
   }
 
   public T setEnvironmentVariable(String name, String value) {
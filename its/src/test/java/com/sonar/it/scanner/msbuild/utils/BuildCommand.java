@@ -22,17 +22,19 @@ package com.sonar.it.scanner.msbuild.utils;
 import com.sonar.orchestrator.build.BuildResult;
 import com.sonar.orchestrator.util.StreamConsumer;
 import com.sonar.orchestrator.util.command.Command;
-import com.sonar.orchestrator.util.command.CommandExecutor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.failureDescription;
 
 public class BuildCommand extends BaseCommand<BuildCommand> {
 
@@ -40,12 +42,20 @@ public class BuildCommand extends BaseCommand<BuildCommand> {
   private static final Logger LOG = LoggerFactory.getLogger(BuildCommand.class);
 
   private final ArrayList<String> arguments = new ArrayList<>();
+  private final BuildServerPool buildServers;
   private String dotnetCommand;
   private boolean shouldInvokeNugetRestore;
   private boolean skipExtraArgs;
+  private boolean coldBuildServers;
 
   public BuildCommand(Path projectDir) {
+    this(projectDir, null);
+  }
+
+  // Builds reuse warm build servers from the pool when it is not null, see BuildServerPool
+  public BuildCommand(Path projectDir, @Nullable BuildServerPool buildServers) {
     super(projectDir);
+    this.buildServers = buildServers;
   }
 
   public BuildCommand useDotNet() {
@@ -67,6 +77,15 @@ public class BuildCommand extends BaseCommand<BuildCommand> {
     return this;
   }
 
+  /**
+   * Always start new MSBuild nodes and a new compiler server, even when -Dits.buildServers.warm=true.
+   * Required by tests that verify which analyzers are loaded, as warm build servers keep the analyzer assemblies of previous builds.
+   */
+  public BuildCommand withColdBuildServers() {
+    this.coldBuildServers = true;
+    return this;
+  }
+
   public BuildCommand withNuGetRestore() {
     this.shouldInvokeNugetRestore = true;
     return this;
@@ -81,11 +100,41 @@ public class BuildCommand extends BaseCommand<BuildCommand> {
     if (shouldInvokeNugetRestore) {
       executeNuGetRestore();
     }
-    var command = createCommand();
-    var result = new BuildResult();
+    // The restore cache only covers the MSBuild invocation, dotnet commands restore implicitly
+    var restoreKey = dotnetCommand == null && RestoreCache.ENABLED ? RestoreCache.key(projectDir, arguments, environment) : null;
+    var outputsBefore = restoreKey == null ? Set.<Path>of() : RestoreCache.buildOutputs(projectDir);
+    var restored = restoreKey != null && RestoreCache.materialize(projectDir, restoreKey);
+    var result = run(restored);
+    if (restored && !result.isSuccess()) {
+      LOG.warn("Build with cached restore outputs failed, building again with a real restore");
+      RestoreCache.invalidate(restoreKey);
+      RestoreCache.deleteBuildOutputs(projectDir, outputsBefore);  // Also removes the materialized restore outputs
+      restored = false;
+      result = run(false);
+    }
+    if (restoreKey != null && !restored && result.isSuccess()) {
+      RestoreCache.capture(projectDir, restoreKey);
+    }
+    assertThat(result.isSuccess()).describedAs(failureDescription("BUILD step failed.", result)).isTrue();
+    return result;
+  }
+
+  private SpillingBuildResult run(boolean restored) {
+    // .NET Framework MSBuild nodes can't be shut down when the test class finishes, see BuildServerPool
+    var isNetFrameworkMSBuild = dotnetCommand == null && OSPlatform.isWindows();
+    var slot = buildServers != null && !coldBuildServers && !skipExtraArgs && !isNetFrameworkMSBuild ? buildServers.acquire(environment) : null;
+    var command = createCommand(slot, restored);
+    var result = new SpillingBuildResult();
     LOG.info("Build command start: '{}' in {}", command.toCommandLine(), command.getDirectory());
-    result.addStatus(CommandExecutor.create().execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds));
-    assertThat(result.isSuccess()).describedAs("BUILD step failed. Logs: " + result.getLogs()).isTrue();
+    var sampler = ProcessSampler.forStep("build");
+    try {
+      result.addStatus(sampler.execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds));
+    } finally {
+      result.setProcessStats(sampler.stop());
+      if (slot != null) {
+        slot.close();
+      }
+    }
     LOG.info("Build command finish: '{}' in {}", command.toCommandLine(), command.getDirectory());
     return result;
   }
@@ -95,10 +144,10 @@ public class BuildCommand extends BaseCommand<BuildCommand> {
     command.setTimeout(this.timeout);
     environment.forEach(command::setEnvironmentVariable);
     var result = command.execute();
-    assertThat(result.isSuccess()).describedAs("RESTORE failed. Logs: " + result.getLogs()).isTrue();
+    assertThat(result.isSuccess()).describedAs(failureDescription("RESTORE failed.", result)).isTrue();
   }
 
-  private Command createCommand() {
+  private Command createCommand(@Nullable BuildServerPool.Slot slot, boolean restored) {
     Command command;
     if (dotnetCommand == null) {
       command = OSPlatform.isWindows()
@@ -107,20 +156,21 @@ public class BuildCommand extends BaseCommand<BuildCommand> {
         // https://learn.microsoft.com/en-us/dotnet/core/tools/dotnet-build#msbuild
         : Command.create("dotnet").addArgument("msbuild");
       command
-        .addArgument("/t:Restore,Rebuild")
+        .addArgument(restored ? "/t:Rebuild" : "/t:Restore,Rebuild")
         .addArgument("/warnaserror:AD0001")
-        .addArgument("-nodeReuse:false"); // Equivalent of dotnet --disable-build-servers
+        .addArgument(slot == null ? "-nodeReuse:false" : "-nodeReuse:true"); // Equivalent of dotnet --disable-build-servers
     } else {
       command = Command.create("dotnet")
         .addArgument(dotnetCommand);
       if (!skipExtraArgs) {
-        command
-          .addArgument("-warnaserror:AD0001")
-          .addArgument("--disable-build-servers");
+        command.addArgument("-warnaserror:AD0001");
+        if (slot == null) {
+          command.addArgument("--disable-build-servers");
+        }
       }
     }
     arguments.forEach(command::addArgument);
-    command.replaceEnvironment(environment);
+    command.replaceEnvironment(slot == null ? environment : slot.environment());
     command.setDirectory(projectDir.toFile());
     return command;
   }
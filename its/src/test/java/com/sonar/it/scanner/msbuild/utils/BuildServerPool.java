@@ -0,0 +1,184 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.util.command.Command;
+import com.sonar.orchestrator.util.command.CommandExecutor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Opt-in reuse of MSBuild worker nodes and of the Roslyn compiler server between builds, enabled with -Dits.buildServers.warm=true.
+// Each test class has its own pool, kept in the store of the class, so the warm nodes are only reused by the builds of one class:
+// - MSBuild nodes only accept builds with the same handshake, so each slot gets its own MSBUILDNODEHANDSHAKESALT
+// - a slot is used by one build at a time, and slots are keyed by the build environment, so builds with different environments never meet
+// - ContextExtension shuts the MSBuild nodes of the class down in afterAll, with the environment and the salt of each slot
+// The S4NET targets load SonarScanner.MSBuild.Tasks.dll from the .sonarqube directory of each test. A warm node keeps running the copy of the
+// first test of the class, the same scanner build, and keeps it locked on Windows. The temporary directories of the class are therefore
+// deleted only once its nodes are shut down.
+// .NET Framework MSBuild nodes cannot be shut down by "dotnet build-server shutdown", so BuildCommand never reuses them.
+// The Roslyn compiler server is shared by all pools and keeps the analyzer assemblies it loaded until the JVM exits. Tests that verify which
+// analyzers are loaded use BuildCommand.withColdBuildServers().
+public final class BuildServerPool {
+  public static final String SALT_VARIABLE = "MSBUILDNODEHANDSHAKESALT";
+  public static final boolean ENABLED = Boolean.getBoolean("its.buildServers.warm");
+
+  private static final Logger LOG = LoggerFactory.getLogger(BuildServerPool.class);
+  private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(BuildServerPool.class);
+  // The compiler server is shut down once, at exit, with the environment of the first slot
+  private static Map<String, String> compilerServerEnvironment;
+
+  private final String name;
+  private final Map<String, ArrayDeque<Slot>> freeSlots = new HashMap<>();
+  private final List<Slot> allSlots = new ArrayList<>();
+  private final List<Path> pendingDirectories = new ArrayList<>();
+
+  private BuildServerPool(String name) {
+    this.name = name;
+  }
+
+  // Pool of the test class, null when the mode is disabled
+  @Nullable
+  public static BuildServerPool of(TestContext testContext) {
+    if (!ENABLED) {
+      return null;
+    }
+    var classContext = classContext(testContext.extensionContext());
+    return classContext.getStore(NAMESPACE).computeIfAbsent(BuildServerPool.class,
+      x -> new BuildServerPool(classContext.getRequiredTestClass().getSimpleName()), BuildServerPool.class);
+  }
+
+  // Shuts down the MSBuild nodes of the class, then deletes the temporary directories of its tests
+  public static void shutdown(ExtensionContext classContext) {
+    var pool = classContext.getStore(NAMESPACE).remove(BuildServerPool.class, BuildServerPool.class);
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  public synchronized Slot acquire(Map<String, String> environment) {
+    var key = fingerprint(environment);
+    var slot = freeSlots.computeIfAbsent(key, x -> new ArrayDeque<>()).poll();
+    if (slot == null) {
+      slot = new Slot(this, key, "its-" + UUID.randomUUID(), Map.copyOf(environment));
+      allSlots.add(slot);
+      synchronized (BuildServerPool.class) {
+        if (compilerServerEnvironment == null) {
+          compilerServerEnvironment = slot.environment;
+          Runtime.getRuntime().addShutdownHook(new Thread(BuildServerPool::shutdownCompilerServer, "BuildServerPool.shutdownCompilerServer"));
+        }
+      }
+      LOG.info("Created build server slot {} for {}", slot.salt, name);
+    }
+    return slot;
+  }
+
+  // Warm MSBuild nodes keep the task assembly of the tests loaded, and locked on Windows, until the pool is shut down
+  public synchronized void deleteAfterShutdown(Path directory) {
+    pendingDirectories.add(directory);
+  }
+
+  private synchronized void release(Slot slot) {
+    var free = freeSlots.get(slot.key);
+    if (free != null) {  // Null once the pool was shut down
+      free.push(slot);
+    }
+  }
+
+  private synchronized void shutdown() {
+    allSlots.forEach(x -> shutdown(x.environment(), "slot " + x.salt + " of " + name, "--msbuild"));
+    allSlots.clear();
+    freeSlots.clear();
+    pendingDirectories.forEach(DirectoryDeleter::deleteInBackground);
+    pendingDirectories.clear();
+  }
+
+  private static synchronized void shutdownCompilerServer() {
+    shutdown(compilerServerEnvironment, "compiler server", "--vbcscompiler");
+  }
+
+  private static void shutdown(Map<String, String> environment, String name, String... options) {
+    try {
+      var command = Command.create("dotnet").addArguments("build-server", "shutdown").addArguments(options);
+      command.replaceEnvironment(environment);
+      CommandExecutor.create().execute(command, LOG::debug, Timeout.ONE_MINUTE.miliseconds);
+    } catch (RuntimeException ex) {
+      LOG.warn("Failed to shut down build servers of {}", name, ex);
+    }
+  }
+
+  // Parameterized tests and test templates have their own context below the one of the class
+  private static ExtensionContext classContext(ExtensionContext context) {
+    var result = context;
+    while (result.getTestMethod().isPresent() && result.getParent().isPresent()) {
+      result = result.getParent().get();
+    }
+    return result;
+  }
+
+  private static String fingerprint(Map<String, String> environment) {
+    var sorted = new TreeMap<>(environment);
+    sorted.remove(SALT_VARIABLE);
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(sorted.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 6);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  public static final class Slot implements AutoCloseable {
+    private final BuildServerPool pool;
+    private final String key;
+    private final String salt;
+    private final Map<String, String> environment;
+
+    private Slot(BuildServerPool pool, String key, String salt, Map<String, String> environment) {
+      this.pool = pool;
+      this.key = key;
+      this.salt = salt;
+      this.environment = environment;
+    }
+
+    public Map<String, String> environment() {
+      var result = new HashMap<>(environment);
+      result.put(SALT_VARIABLE, salt);
+      return result;
+    }
+
+    @Override
+    public void close() {
+      pool.release(this);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.sonarqube.ws.Components;
+import org.sonarqube.ws.Components.Component;
+import org.sonarqube.ws.client.WsClient;
+import org.sonarqube.ws.client.components.TreeRequest;
+
+// Components of a project, read from components/tree. All pages are streamed by PagedStream. Qualifiers are filtered by the server,
+// languages here because components/tree has no such parameter.
+public final class ComponentWalker {
+  private final WsClient client;
+  private final String projectKey;
+  private List<String> qualifiers = List.of("FIL");
+  @Nullable
+  private Set<String> languages;
+
+  private ComponentWalker(WsClient client, String projectKey) {
+    this.client = client;
+    this.projectKey = projectKey;
+  }
+
+  // Files of the project, unless other qualifiers are requested
+  public static ComponentWalker of(Orchestrator orchestrator, String projectKey) {
+    return new ComponentWalker(TestUtils.newWsClient(orchestrator), projectKey);
+  }
+
+  public ComponentWalker qualifiers(String... qualifiers) {
+    this.qualifiers = List.of(qualifiers);
+    return this;
+  }
+
+  public ComponentWalker languages(String... languages) {
+    this.languages = Set.of(languages);
+    return this;
+  }
+
+  public Stream<Component> stream() {
+    var components = PagedStream.of("components of " + projectKey, Integer.MAX_VALUE, this::tree, Components.TreeWsResponse::getPaging, Components.TreeWsResponse::getComponentsList);
+    return languages == null ? components : components.filter(x -> languages.contains(x.getLanguage()));
+  }
+
+  public List<Component> list() {
+    try (var components = stream()) {
+      return components.toList();
+    }
+  }
+
+  // Sorted component keys, cheaper to keep and to assert against than the full components
+  public Set<String> keys() {
+    try (var components = stream()) {
+      return components.map(Component::getKey).collect(Collectors.toCollection(TreeSet::new));
+    }
+  }
+
+  private Components.TreeWsResponse tree(int page) {
+    return client.components().tree(new TreeRequest()
+      .setComponent(projectKey)
+      .setQualifiers(qualifiers)
+      .setP(Integer.toString(page))
+      .setPs(Integer.toString(PagedStream.MAX_PAGE_SIZE)));
+  }
+}
@@ -19,22 +19,28 @@
  */
 package com.sonar.it.scanner.msbuild.utils;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.condition.EnabledOnOs;
 import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.TestWatcher;
 
-public class ContextExtension implements BeforeEachCallback, AfterEachCallback {
+public class ContextExtension implements BeforeEachCallback, AfterEachCallback, AfterAllCallback, ParameterResolver, TestWatcher {
 
-  // IT classes run in parallel, and this keeps track of the CURRENT value from the thread where the test started.
-  // Whenever a single test would use any form of multithreading, it can get a missing or wrong value here!
-  private static final ThreadLocal<String> currentTestName = new ThreadLocal<>();
-  private static final ThreadLocal<Path> currentTempDir = new ThreadLocal<>();
+  // The TestContext lives in the store of the test itself, and tests receive it as a parameter.
+  // Nothing is bound to the thread, so test methods of the same class can run concurrently.
+  private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(ContextExtension.class);
+  // TestWatcher is notified after afterEach, once the store of the test is closed. Diagnostics wait here until then, by test unique ID.
+  private static final Map<String, TestContext> finishedTests = new ConcurrentHashMap<>();
 
   @Override
   public void beforeEach(ExtensionContext context) {
@@ -42,44 +48,68 @@ public class ContextExtension implements BeforeEachCallback, AfterEachCallback {
     // Adding the OS name suffix to avoid collision when running tests against SQC at the same time
     // Without this, the tests could timeout when trying to retrieve the analysis report:
     // `Report can't be processed: a newer report has already been processed, and processing older reports is not supported`
-    init(context.getRequiredTestMethod().getName() + "-" + OSPlatform.current().toString() + (context.getRequiredTestMethod().getParameterCount() == 0 ? "" : "-" + UUID.randomUUID()));
+    var testName = context.getRequiredTestMethod().getName() + "-" + OSPlatform.current().toString() + (hasArguments(context) ? "-" + UUID.randomUUID() : "");
+    context.getStore(NAMESPACE).put(TestContext.class, TestContext.create(testName, context));
   }
 
   @Override
   public void afterEach(ExtensionContext context) {
-    cleanup();
+    var testContext = context.getStore(NAMESPACE).remove(TestContext.class, TestContext.class);
+    if (testContext != null) {
+      finishedTests.put(context.getUniqueId(), testContext);
+      var buildServers = BuildServerPool.of(testContext);
+      if (buildServers == null) {
+        DirectoryDeleter.deleteInBackground(testContext.tempDir());
+      } else {
+        buildServers.deleteAfterShutdown(testContext.tempDir());
+      }
+    }
   }
 
-  public static void init(String testName) {
-    try {
-      currentTestName.set(testName);
-      currentTempDir.set(Files.createTempDirectory("junit5-ContextExtension-" + testName + "-").toRealPath());
-    } catch (Exception ex) {
-      throw new RuntimeException(ex.getMessage(), ex);
+  @Override
+  public void afterAll(ExtensionContext context) {
+    BuildServerPool.shutdown(context);
+  }
+
+  @Override
+  public void testFailed(ExtensionContext context, Throwable cause) {
+    var testContext = finishedTests.remove(context.getUniqueId());
+    if (testContext != null) {
+      testContext.diagnostics().dump(testContext.testName());
     }
   }
 
-  public static void cleanup() {
-    TestUtils.deleteDirectory(currentTempDir());
-    currentTestName.remove();
-    currentTempDir.remove();
+  @Override
+  public void testSuccessful(ExtensionContext context) {
+    finishedTests.remove(context.getUniqueId());
+  }
+
+  @Override
+  public void testAborted(ExtensionContext context, Throwable cause) {
+    finishedTests.remove(context.getUniqueId());
   }
 
-  public static String currentTestName() {
-    return ensureNotNull(currentTestName);
+  @Override
+  public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+    return parameterContext.getParameter().getType() == TestContext.class;
   }
 
-  public static Path currentTempDir() {
-    return ensureNotNull(currentTempDir);
+  @Override
+  public TestContext resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+    return testContext(extensionContext);
   }
 
-  private static <T> T ensureNotNull(ThreadLocal<T> threadLocal) {
-    var value = threadLocal.get();
-    if (value == null) {
-      throw new RuntimeException("ContextExtension.currentTestName is not available. The test class is probably missing @ExtendWith({ContextExtension.class}).");
-    } else {
-      return value;
+  public static TestContext testContext(ExtensionContext context) {
+    var testContext = context.getStore(NAMESPACE).get(TestContext.class, TestContext.class);
+    if (testContext == null) {
+      throw new IllegalStateException("TestContext is not available. The test class is probably missing @ExtendWith({ContextExtension.class}).");
     }
+    return testContext;
+  }
+
+  // Parameterized tests share the method name, and the TestContext itself is a parameter too
+  private static boolean hasArguments(ExtensionContext context) {
+    return Arrays.stream(context.getRequiredTestMethod().getParameterTypes()).anyMatch(x -> x != TestContext.class);
   }
 
   private void checkWorkloadPrerequisites(ExtensionContext context) {
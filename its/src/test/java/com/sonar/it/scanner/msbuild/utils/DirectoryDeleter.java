@@ -0,0 +1,165 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Deletes test directories without blocking the test thread. The directory is renamed into a trash directory, which is instant and makes it
+// disappear for the test, then deleted by a low-priority background thread.
+// The backlog is bounded by its.deleter.backlog (default 32): when it is full, the caller deletes the directory itself, so a slow disk slows
+// the tests down instead of filling it up. The backlog is drained at JVM shutdown, and leftovers of interrupted runs are deleted at startup.
+public final class DirectoryDeleter {
+  private static final Logger LOG = LoggerFactory.getLogger(DirectoryDeleter.class);
+  private static final Path TRASH = Paths.get(System.getProperty("java.io.tmpdir"), "its-trash").toAbsolutePath();
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS,
+    new ArrayBlockingQueue<>(Integer.getInteger("its.deleter.backlog", 32)),
+    runnable -> {
+      var thread = new Thread(runnable, "its-deleter-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    },
+    new ThreadPoolExecutor.CallerRunsPolicy());
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(DirectoryDeleter::drain, "DirectoryDeleter.drain"));
+    try (var leftovers = Files.list(TRASH)) {
+      leftovers.toList().forEach(x -> EXECUTOR.execute(() -> delete(x)));
+    } catch (NoSuchFileException ex) {
+      // Nothing left by a previous run
+    } catch (IOException ex) {
+      LOG.warn("Failed to list {}", TRASH, ex);
+    }
+  }
+
+  private DirectoryDeleter() {
+  }
+
+  public static void deleteInBackground(Path directory) {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    Path trashed;
+    try {
+      Files.createDirectories(TRASH);
+      trashed = TRASH.resolve(UUID.randomUUID().toString());
+      Files.move(directory, trashed, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      // Another volume, or a file still open by a process on Windows
+      LOG.debug("Failed to move {} to {}, deleting it in place", directory, TRASH, ex);
+      delete(directory);
+      return;
+    }
+    EXECUTOR.execute(() -> delete(trashed));
+  }
+
+  // Deletes, in the background, the per-run directories <root>/<pid> whose process is not alive anymore, left by runs that were killed
+  public static void deleteStaleRunDirectories(Path root) {
+    try (var runs = Files.list(root)) {
+      runs.filter(x -> !isRunning(x.getFileName().toString())).forEach(DirectoryDeleter::deleteInBackground);
+    } catch (NoSuchFileException ex) {
+      // No previous run
+    } catch (IOException ex) {
+      LOG.warn("Failed to list {}", root, ex);
+    }
+  }
+
+  private static boolean isRunning(String pid) {
+    try {
+      return ProcessHandle.of(Long.parseLong(pid)).map(ProcessHandle::isAlive).orElse(false);
+    } catch (NumberFormatException ex) {
+      return false;
+    }
+  }
+
+  // Deletes the whole tree, including read-only files like the ones of .git/objects. Failures are logged and do not stop the deletion.
+  public static void delete(Path directory) {
+    var failures = new AtomicInteger();
+    try {
+      Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          deleteEntry(file, failures);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException ex) {
+          deleteEntry(file, failures);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException ex) {
+          deleteEntry(dir, failures);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (NoSuchFileException ex) {
+      return;
+    } catch (IOException ex) {
+      LOG.warn("Failed to delete {}", directory, ex);
+    }
+    if (failures.get() > 0) {
+      LOG.warn("Failed to delete {} entries of {}", failures.get(), directory);
+    }
+  }
+
+  private static void deleteEntry(Path path, AtomicInteger failures) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      try {
+        path.toFile().setWritable(true);
+        Files.deleteIfExists(path);
+      } catch (IOException retryEx) {
+        LOG.debug("Failed to delete {}", path, retryEx);
+        failures.incrementAndGet();
+      }
+    }
+  }
+
+  private static void drain() {
+    EXECUTOR.shutdown();
+    try {
+      if (!EXECUTOR.awaitTermination(5, TimeUnit.MINUTES)) {
+        LOG.warn("Deletion of {} did not finish, it will be completed by the next run", TRASH);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -34,7 +34,7 @@ public class EditionSupportCondition implements ExecutionCondition {
     if (disableOnEdition == null) {
       return ConditionEvaluationResult.enabled("Test enabled");
     }
-    final var serverEdition = ServerTests.ORCHESTRATOR.getServer().getEdition();
+    final var serverEdition = ServerTests.orchestrator(context).getServer().getEdition();
     return Arrays.asList(disableOnEdition.value()).contains(serverEdition)
       ? ConditionEvaluationResult.disabled("Edition " + serverEdition + " is not supported.")
       : ConditionEvaluationResult.enabled("Edition " + serverEdition + " is supported.");
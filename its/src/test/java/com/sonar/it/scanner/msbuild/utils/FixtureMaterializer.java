@@ -0,0 +1,180 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.util.command.Command;
+import com.sonar.orchestrator.util.command.CommandExecutor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Gives each test its own tree of a fixture from its/projects without copying every file again.
+// Each fixture is copied once per run into a template next to the test temporary directories, then each test gets:
+// - CLONE: a copy-on-write clone of the template (cp --reflink on Linux, cp -c on macOS). Default on Linux and macOS.
+// - LINK: hard links to the template files. Default on Windows when the temporary directory is on NTFS or ReFS.
+// - COPY: a parallel NIO copy, when the default mode is not supported by the file system (for example links across volumes).
+// The mode can be forced with -Dits.fixtures.mode=clone|link|copy.
+// Hard linked files share their content with the template and with other tests, so tests modifying a fixture file call breakLink() on it first.
+// Builds and the scanner only read the fixture files, their outputs are new files (obj, bin, .sonarqube).
+// On Linux and macOS the template files are also made read-only, so a missing breakLink() fails instead of corrupting other tests.
+// Windows can not delete read-only files, and the attribute is shared by all the links of a file, so breakLink() is the only protection there.
+// Templates live in a directory of the current run, deleted when the JVM exits, and the ones left by killed runs are deleted by the next run.
+public final class FixtureMaterializer {
+  private enum Mode {
+    CLONE, LINK, COPY
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(FixtureMaterializer.class);
+  private static final Path PROJECTS = Paths.get("projects");
+  private static final Path TEMPLATES_ROOT = Paths.get(System.getProperty("java.io.tmpdir"), "its-fixture-templates").toAbsolutePath();
+  private static final Path TEMPLATES = TEMPLATES_ROOT.resolve(Long.toString(ProcessHandle.current().pid()));
+  private static final Map<String, Path> templates = new ConcurrentHashMap<>();
+  private static final Set<Path> readOnlyTemplates = ConcurrentHashMap.newKeySet();
+  private static volatile Mode mode = initialMode();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> DirectoryDeleter.delete(TEMPLATES), "FixtureMaterializer.cleanup"));
+    DirectoryDeleter.deleteStaleRunDirectories(TEMPLATES_ROOT);
+  }
+
+  private FixtureMaterializer() {
+  }
+
+  public static void materialize(String projectName, Path destination) throws IOException {
+    var template = template(projectName);
+    Files.createDirectories(destination);
+    if (mode == Mode.CLONE && !tryClone(template, destination)) {
+      LOG.info("Copy-on-write clones are not supported in {}, using copies", TEMPLATES);
+      mode = Mode.COPY;
+      FileUtils.cleanDirectory(destination.toFile());
+    }
+    if (mode == Mode.LINK) {
+      try {
+        copyTree(template, destination, true);
+        makeReadOnly(template);  // Only once linking works, so that copies are never made from a read-only template
+      } catch (IOException | UncheckedIOException | UnsupportedOperationException ex) {
+        LOG.info("Hard links are not supported from {} to {}, using copies: {}", TEMPLATES, destination, ex.getMessage());
+        mode = Mode.COPY;
+        FileUtils.cleanDirectory(destination.toFile());
+      }
+    }
+    if (mode == Mode.COPY) {
+      copyTree(template, destination, false);
+    }
+  }
+
+  // Replaces the file with a private, writable copy, so writing to it does not change the template nor the trees of other tests
+  public static void breakLink(Path file) throws IOException {
+    var copy = file.resolveSibling(file.getFileName() + ".tmp-" + UUID.randomUUID());
+    Files.copy(file, copy);
+    copy.toFile().setWritable(true);
+    Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static Path template(String projectName) {
+    return templates.computeIfAbsent(projectName, x -> {
+      var template = TEMPLATES.resolve(x);
+      try {
+        Files.createDirectories(template);
+        copyTree(PROJECTS.resolve(x), template, false);
+        return template;
+      } catch (IOException ex) {
+        throw new UncheckedIOException("Failed to create the template of fixture " + x, ex);
+      }
+    });
+  }
+
+  // Only hard linked trees need it, clones and copies of a read-only file would be read-only as well.
+  // Read-only files can not be deleted on Windows, which would break the cleanup of the test directories.
+  private static void makeReadOnly(Path template) throws IOException {
+    if (!OSPlatform.isWindows() && readOnlyTemplates.add(template)) {
+      try (var files = Files.walk(template)) {
+        files.filter(Files::isRegularFile).forEach(x -> x.toFile().setWritable(false, false));
+      }
+    }
+  }
+
+  private static boolean tryClone(Path template, Path destination) {
+    var command = OSPlatform.current() == OperatingSystem.MacOS
+      ? Command.create("cp").addArguments("-c", "-R", template + "/", destination.toString())
+      : Command.create("cp").addArguments("-R", "--reflink=always", "--no-target-directory", template.toString(), destination.toString());
+    try {
+      return CommandExecutor.create().execute(command, LOG::debug, Timeout.ONE_MINUTE.miliseconds) == 0;
+    } catch (RuntimeException ex) {
+      LOG.debug("Clone of {} failed", template, ex);
+      return false;
+    }
+  }
+
+  // Directories are created first, then the files are linked or copied in parallel
+  private static void copyTree(Path source, Path target, boolean link) throws IOException {
+    List<Path> files;
+    try (var paths = Files.walk(source)) {
+      files = paths.sorted().toList();
+    }
+    for (var path : files) {
+      if (Files.isDirectory(path)) {
+        Files.createDirectories(target.resolve(source.relativize(path).toString()));
+      }
+    }
+    files.parallelStream().filter(Files::isRegularFile).forEach(x -> {
+      var destination = target.resolve(source.relativize(x).toString());
+      try {
+        if (link) {
+          Files.createLink(destination, x);
+        } else {
+          Files.copy(x, destination, StandardCopyOption.COPY_ATTRIBUTES);
+          destination.toFile().setWritable(true);
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+  }
+
+  private static Mode initialMode() {
+    var configured = System.getProperty("its.fixtures.mode");
+    if (configured != null) {
+      return Mode.valueOf(configured.toUpperCase(Locale.ROOT));
+    }
+    return OSPlatform.isWindows() ? windowsMode() : Mode.CLONE;
+  }
+
+  private static Mode windowsMode() {
+    try {
+      var type = Files.getFileStore(Paths.get(System.getProperty("java.io.tmpdir"))).type();
+      return type.equalsIgnoreCase("NTFS") || type.equalsIgnoreCase("ReFS") ? Mode.LINK : Mode.COPY;
+    } catch (IOException ex) {
+      return Mode.COPY;
+    }
+  }
+}
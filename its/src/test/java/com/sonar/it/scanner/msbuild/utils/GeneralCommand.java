@@ -29,6 +29,7 @@ import java.util.List;
 
 import static com.sonar.it.scanner.msbuild.utils.TestUtils.LOG;
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.failureDescription;
 
 public class GeneralCommand extends BaseCommand<GeneralCommand> {
   private final String command;
@@ -60,11 +61,11 @@ public class GeneralCommand extends BaseCommand<GeneralCommand> {
     command.replaceEnvironment(environment);
     var commandLine = command.toCommandLine();
     LOG.info("Command line start: '{}' in {}", commandLine, command.getDirectory());
-    var result = new BuildResult();
+    var result = new SpillingBuildResult();
     var returnCode = CommandExecutor.create().execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds);
     result.addStatus(returnCode);
     if (!ignoreExitCode) {
-      assertThat(result.isSuccess()).describedAs("Command '" + commandLine + "' failed with logs: " + result.getLogs()).isTrue();
+      assertThat(result.isSuccess()).describedAs(failureDescription("Command '" + commandLine + "' failed.", result)).isTrue();
     }
     LOG.info("Command line finish: '{}' in {}", commandLine, command.getDirectory());
     return result;
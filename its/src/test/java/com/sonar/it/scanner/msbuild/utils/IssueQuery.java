@@ -0,0 +1,116 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.api.internal.apachecommons.lang3.StringUtils;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Issues.Issue;
+import org.sonarqube.ws.client.WsClient;
+import org.sonarqube.ws.client.issues.SearchRequest;
+
+// Issues of a project or of one of its components, read from issues/search.
+// All pages are streamed by PagedStream. count() and countByRule() only request paging and facets, not issues.
+// SonarQube 9.9 and below ignore the componentKeys filter: project keys are then filtered with the projects parameter, and only other
+// component keys fall back to downloading all issues of the server and filtering them here.
+public final class IssueQuery {
+  // issues/search refuses to return anything past the 10 000th result
+  private static final int MAX_RESULTS = 10_000;
+
+  private final WsClient client;
+  private final String componentKey;
+  private final boolean legacyServer;
+
+  private IssueQuery(WsClient client, String componentKey, boolean legacyServer) {
+    this.client = client;
+    this.componentKey = componentKey;
+    this.legacyServer = legacyServer;
+  }
+
+  public static IssueQuery of(Orchestrator orchestrator, String componentKey) {
+    return new IssueQuery(TestUtils.newWsClient(orchestrator), componentKey, !orchestrator.getServer().version().isGreaterThan(9, 9));
+  }
+
+  public List<Issue> list() {
+    try (var issues = stream()) {
+      return issues.toList();
+    }
+  }
+
+  public Stream<Issue> stream() {
+    var issues = PagedStream.of("issues of " + componentKey, MAX_RESULTS, x -> search(x, PagedStream.MAX_PAGE_SIZE), Issues.SearchWsResponse::getPaging,
+      Issues.SearchWsResponse::getIssuesList);
+    return isServerFiltered() ? issues : issues.filter(x -> StringUtils.equalsAny(componentKey, x.getProject(), x.getComponent()));
+  }
+
+  public long count() {
+    if (isServerFiltered()) {
+      return search(1, 1).getPaging().getTotal();
+    }
+    try (var issues = stream()) {
+      return issues.count();
+    }
+  }
+
+  // Rule key -> number of issues
+  public Map<String, Long> countByRule() {
+    if (isServerFiltered()) {
+      var response = search(request(1, 1).setFacets(List.of("rules")));
+      var rules = response.getFacets().getFacetsList().stream()
+        .filter(x -> x.getProperty().equals("rules"))
+        .flatMap(x -> x.getValuesList().stream())
+        .collect(Collectors.toMap(Common.FacetValue::getVal, Common.FacetValue::getCount));
+      // The facet only returns the most frequent rules
+      if (rules.values().stream().mapToLong(x -> x).sum() == response.getPaging().getTotal()) {
+        return rules;
+      }
+    }
+    try (var issues = stream()) {
+      return issues.collect(Collectors.groupingBy(Issue::getRule, Collectors.counting()));
+    }
+  }
+
+  private boolean isServerFiltered() {
+    return !legacyServer || !componentKey.contains(":");
+  }
+
+  private Issues.SearchWsResponse search(int page, int pageSize) {
+    return search(request(page, pageSize));
+  }
+
+  private Issues.SearchWsResponse search(SearchRequest request) {
+    return client.issues().search(request);
+  }
+
+  private SearchRequest request(int page, int pageSize) {
+    var request = new SearchRequest().setP(Integer.toString(page)).setPs(Integer.toString(pageSize));
+    if (!legacyServer) {
+      request.setComponentKeys(List.of(componentKey));
+    } else if (isServerFiltered()) {
+      request.setProjects(List.of(componentKey));
+    }
+    return request;
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Harness-managed NuGet folder feed with the packages used by the fixtures, so that restores read from the local disk instead of remote feeds.
+// Layout of the its.nugetFeed.dir directory (~/.sonar/its/nuget by default):
+//   feed/<id>.<version>.nupkg   Folder feed, filled once per run from packages.lock.json, PackageReference and packages.config of its/projects
+//   packages/                   Global packages folder shared by all fixtures, passed as NUGET_PACKAGES to every command
+//   NuGet.Config                Repository NuGet.Config with the folder feed added, copied into every fixture by TestUtils.projectDir
+// NuGet queries all the sources for every package, so the generated NuGet.Config also has a packageSourceMapping: the ids with all their
+// fixture versions in the folder feed are mapped to it only, everything else to the upstream feed. Packages that can not be predicted from the
+// fixtures (SDK packs, transitive dependencies without lock file) still come from the upstream feed. A transitive dependency on another version
+// of a mapped id fails to restore, its fixture then needs a lock file or an explicit reference.
+// With -Dits.nugetFeed.offline=true the upstream feed is removed from the generated NuGet.Config, so the suite runs without network.
+// Enabled with -Dits.nugetFeed=true. Otherwise, the repository NuGet.Config is copied as is and commands use the default global packages folder.
+public final class LocalNuGetFeed {
+  public static final boolean ENABLED = Boolean.getBoolean("its.nugetFeed");
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalNuGetFeed.class);
+  private static final boolean OFFLINE = Boolean.getBoolean("its.nugetFeed.offline");
+  private static final Path ROOT = Paths.get(System.getProperty("its.nugetFeed.dir", Paths.get(System.getProperty("user.home"), ".sonar", "its", "nuget").toString())).toAbsolutePath();
+  private static final String FEED_KEY = "ItsLocalFeed";
+  private static final Path REPOSITORY_CONFIG = Paths.get("..", "NuGet.Config");
+  private static final Path PROJECTS = Paths.get("projects");
+  private static final Pattern UPSTREAM = Pattern.compile("\\s*<add key=\"([^\"]+)\" value=\"(https?://[^\"]+)\"[^>]*/>\\R?");
+  private static final Pattern PACKAGE_REFERENCE = Pattern.compile("<Package(?:Reference|Version) +(?:Include|Update)=\"([^\"$]+)\" +Version=\"([^\"$*]+)\"");
+  private static final Pattern PACKAGES_CONFIG = Pattern.compile("<package +id=\"([^\"]+)\" +version=\"([^\"]+)\"");
+
+  private static Path config;
+
+  private LocalNuGetFeed() {
+  }
+
+  public static String packagesDirectory() {
+    return ROOT.resolve("packages").toString();
+  }
+
+  // The feed is filled on the first call, later calls only return the generated NuGet.Config
+  public static synchronized Path nugetConfig() {
+    if (config == null) {
+      try {
+        var repositoryConfig = Files.readString(REPOSITORY_CONFIG, StandardCharsets.UTF_8);
+        var matcher = UPSTREAM.matcher(repositoryConfig);
+        var upstreamKey = matcher.find() ? matcher.group(1) : null;
+        var packages = fixturePackages();
+        if (upstreamKey != null && !OFFLINE) {
+          fill(matcher.group(2), packages);
+        }
+        config = writeConfig(repositoryConfig, upstreamKey, feedIds(packages));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+    return config;
+  }
+
+  private static Path writeConfig(String repositoryConfig, @Nullable String upstreamKey, Set<String> feedIds) throws IOException {
+    var feed = "\n    <add key=\"" + FEED_KEY + "\" value=\"" + ROOT.resolve("feed") + "\" />";
+    var content = OFFLINE ? UPSTREAM.matcher(repositoryConfig).replaceAll("\n") : repositoryConfig;
+    content = content.replace("<clear />", "<clear />" + feed);
+    if (!OFFLINE && upstreamKey != null) {
+      content = content.replace("</packageSources>", "</packageSources>" + sourceMapping(upstreamKey, feedIds));
+    }
+    var target = ROOT.resolve(OFFLINE ? "NuGet.Offline.Config" : "NuGet.Config");
+    var temp = Files.createDirectories(ROOT).resolve(UUID.randomUUID() + ".tmp");
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return target;
+  }
+
+  private static String sourceMapping(String upstreamKey, Set<String> feedIds) {
+    var mapping = new StringBuilder("\n  <packageSourceMapping>\n    <packageSource key=\"" + FEED_KEY + "\">");
+    feedIds.forEach(x -> mapping.append("\n      <package pattern=\"").append(x).append("\" />"));
+    return mapping
+      .append("\n    </packageSource>\n    <packageSource key=\"").append(upstreamKey).append("\">")
+      .append("\n      <package pattern=\"*\" />")
+      .append("\n    </packageSource>\n  </packageSourceMapping>")
+      .toString();
+  }
+
+  // Ids whose fixture versions are all in the folder feed. A mapping applies to all the versions of an id, so a partly filled id stays upstream.
+  private static Set<String> feedIds(Map<String, String> packages) {
+    var feed = ROOT.resolve("feed");
+    var complete = new TreeMap<String, Boolean>();
+    for (var key : packages.keySet()) {
+      complete.merge(key.substring(0, key.indexOf('#')), Files.isRegularFile(feed.resolve(fileName(key))), Boolean::logicalAnd);
+    }
+    var result = new TreeSet<String>();
+    complete.forEach((id, isComplete) -> {
+      if (isComplete) {
+        result.add(id);
+      }
+    });
+    return result;
+  }
+
+  private static void fill(String upstream, Map<String, String> packages) throws IOException {
+    var feed = Files.createDirectories(ROOT.resolve("feed"));
+    var missing = packages.entrySet().stream().filter(x -> !Files.isRegularFile(feed.resolve(fileName(x.getKey())))).toList();
+    if (missing.isEmpty()) {
+      return;
+    }
+    LOG.info("Adding {} of the {} fixture packages to the local NuGet feed {}", missing.size(), packages.size(), feed);
+    var client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      var baseAddress = packageBaseAddress(client, upstream);
+      CompletableFuture.allOf(missing.stream()
+        .map(x -> CompletableFuture.runAsync(() -> download(client, baseAddress, feed, x.getKey(), x.getValue()), executor))
+        .toArray(CompletableFuture[]::new)).join();
+    } catch (RuntimeException ex) {
+      LOG.warn("Failed to fill the local NuGet feed, missing packages will be restored from {}", upstream, ex);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // Keys are "<id>#<version>" in lower case, see packageKey. Values are the SHA-512 from the lock files, or null.
+  private static Map<String, String> fixturePackages() throws IOException {
+    var packages = new HashMap<String, String>();
+    try (var files = Files.walk(PROJECTS)) {
+      for (var file : files.filter(Files::isRegularFile).toList()) {
+        var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.equals("packages.lock.json")) {
+          readLockFile(file, packages);
+        } else if (name.endsWith("proj") || name.endsWith(".props") || name.equals("packages.config")) {
+          var matcher = (name.equals("packages.config") ? PACKAGES_CONFIG : PACKAGE_REFERENCE).matcher(Files.readString(file, StandardCharsets.UTF_8));
+          while (matcher.find()) {
+            packages.putIfAbsent(packageKey(matcher.group(1), matcher.group(2)), null);
+          }
+        }
+      }
+    }
+    return packages;
+  }
+
+  private static void readLockFile(Path file, Map<String, String> packages) throws IOException {
+    var frameworks = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject().getAsJsonObject("dependencies");
+    for (var framework : frameworks.entrySet()) {
+      for (var dependency : framework.getValue().getAsJsonObject().entrySet()) {
+        var details = dependency.getValue().getAsJsonObject();
+        if (details.has("resolved") && !"Project".equals(details.get("type").getAsString())) {
+          packages.put(packageKey(dependency.getKey(), details.get("resolved").getAsString()), details.has("contentHash") ? details.get("contentHash").getAsString() : null);
+        }
+      }
+    }
+  }
+
+  private static String packageBaseAddress(HttpClient client, String serviceIndex) {
+    var index = JsonParser.parseString(send(client, serviceIndex, HttpResponse.BodyHandlers.ofString()));
+    for (var resource : index.getAsJsonObject().getAsJsonArray("resources")) {
+      var object = (JsonObject) resource;
+      if (object.get("@type").getAsString().startsWith("PackageBaseAddress/3.0.0")) {
+        var address = object.get("@id").getAsString();
+        return address.endsWith("/") ? address : address + "/";
+      }
+    }
+    throw new IllegalStateException("No PackageBaseAddress resource in " + serviceIndex);
+  }
+
+  private static void download(HttpClient client, String baseAddress, Path feed, String key, String contentHash) {
+    var id = key.substring(0, key.indexOf('#'));
+    var version = key.substring(key.indexOf('#') + 1);
+    var fileName = fileName(key);
+    try {
+      var content = send(client, baseAddress + id + "/" + version + "/" + fileName, HttpResponse.BodyHandlers.ofByteArray());
+      if (contentHash != null && !contentHash.equals(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-512").digest(content)))) {
+        throw new IllegalStateException("Content hash mismatch of " + fileName);
+      }
+      var temp = feed.resolve(UUID.randomUUID() + ".tmp");
+      Files.write(temp, content);
+      Files.move(temp, feed.resolve(fileName), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | NoSuchAlgorithmException | RuntimeException ex) {
+      LOG.warn("Failed to add {} to the local NuGet feed: {}", fileName, ex.getMessage());
+    }
+  }
+
+  private static <T> T send(HttpClient client, String url, HttpResponse.BodyHandler<T> handler) {
+    var request = HttpRequest.newBuilder(URI.create(url));
+    var user = System.getenv("ARTIFACTORY_USER");
+    var password = System.getenv("ARTIFACTORY_PASSWORD");
+    if (user != null && password != null) {
+      request.header("Authorization", "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8)));
+    }
+    try {
+      var response = client.send(request.build(), handler);
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException("GET " + url + " returned " + response.statusCode());
+      }
+      return response.body();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static String fileName(String key) {
+    return key.replace('#', '.') + ".nupkg";
+  }
+
+  // NuGet normalizes versions to at least three parts, without build metadata, and drops a fourth part equal to zero.
+  // Ranges like "[1.2.3, )" resolve to their lower bound, which is what NuGet picks when the package exists.
+  private static String packageKey(String id, String version) {
+    var normalized = version.replaceAll("[\\[\\]() ]", "").split(",")[0].split("\\+")[0];
+    var parts = normalized.split("-", 2);
+    var numbers = Stream.of(parts[0].split("\\.")).map(x -> x.replaceFirst("^0+(?=\\d)", "")).toList();
+    var padded = Stream.concat(numbers.stream(), Stream.of("0", "0")).limit(Math.max(3, numbers.size() == 4 && numbers.get(3).equals("0") ? 3 : numbers.size())).toList();
+    var result = String.join(".", padded) + (parts.length > 1 ? "-" + parts[1] : "");
+    return (id + "#" + result).toLowerCase(Locale.ROOT);
+  }
+}
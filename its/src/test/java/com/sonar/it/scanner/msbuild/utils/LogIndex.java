@@ -0,0 +1,126 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.build.BuildResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+
+// Line-based contains / matches / extract queries against the begin or end step output.
+// Patterns are searched with find() in each line, so they should not start with ".*" and never span several lines.
+// Each query streams the lines again instead of keeping them, so a log spilled to disk by SpillingBuildResult is never loaded back in memory.
+// missing() and the assertions check all their patterns in a single pass. Compiled patterns are kept in a small LRU cache, as many of them
+// embed the temporary paths or project keys of a single test.
+public final class LogIndex {
+  private static final int MAX_PATTERNS = 256;
+  private static final Map<String, Pattern> PATTERNS = Collections.synchronizedMap(new LinkedHashMap<>(MAX_PATTERNS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+      return size() > MAX_PATTERNS;
+    }
+  });
+
+  private final Supplier<Stream<String>> lines;
+
+  private LogIndex(Supplier<Stream<String>> lines) {
+    this.lines = lines;
+  }
+
+  public static LogIndex of(BuildResult result) {
+    return result instanceof SpillingBuildResult spilling
+      ? new LogIndex(spilling::lines)
+      : new LogIndex(() -> result.getLogs().lines());
+  }
+
+  public static LogIndex of(String logs) {
+    return new LogIndex(logs::lines);
+  }
+
+  public boolean contains(String text) {
+    try (var stream = lines.get()) {
+      return stream.anyMatch(x -> x.contains(text));
+    }
+  }
+
+  public boolean matches(String regex) {
+    var pattern = pattern(regex);
+    try (var stream = lines.get()) {
+      return stream.anyMatch(x -> pattern.matcher(x).find());
+    }
+  }
+
+  // First capturing group of every line matching the regex.
+  public List<String> extract(String regex) {
+    var pattern = pattern(regex);
+    try (var stream = lines.get()) {
+      return stream.map(pattern::matcher).filter(Matcher::find).map(x -> x.group(1)).toList();
+    }
+  }
+
+  // Regexes not found in any line. All of them are checked in a single pass over the log.
+  public List<String> missing(String... regexes) {
+    var remaining = new ArrayList<>(Arrays.stream(regexes).map(LogIndex::pattern).toList());
+    try (var stream = lines.get()) {
+      var iterator = stream.iterator();
+      while (!remaining.isEmpty() && iterator.hasNext()) {
+        var line = iterator.next();
+        remaining.removeIf(x -> x.matcher(line).find());
+      }
+    }
+    return remaining.stream().map(Pattern::pattern).toList();
+  }
+
+  public void assertMatches(String... regexes) {
+    assertThat(missing(regexes)).describedAs("Patterns not found in any line of the logs").isEmpty();
+  }
+
+  public void assertContains(String... texts) {
+    assertMatches(Arrays.stream(texts).map(Pattern::quote).toArray(String[]::new));
+  }
+
+  // All the texts are checked in a single pass over the log
+  public void assertDoesNotContain(String... texts) {
+    var found = new LinkedHashSet<String>();
+    try (var stream = lines.get()) {
+      stream.forEach(line -> Arrays.stream(texts).filter(line::contains).forEach(found::add));
+    }
+    assertThat(found).describedAs("Unexpected text found in the logs").isEmpty();
+  }
+
+  private static Pattern pattern(String regex) {
+    var pattern = PATTERNS.get(regex);
+    if (pattern == null) {
+      pattern = Pattern.compile(regex);
+      PATTERNS.put(regex, pattern);
+    }
+    return pattern;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.Orchestrator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonarqube.ws.Measures;
+import org.sonarqube.ws.client.measures.ComponentTreeRequest;
+
+// Measures of a project and of all its components, fetched with measures/component_tree instead of one measures/component call per
+// component and metric. Take the snapshot once after the analysis, then query it as many times as needed.
+public final class MeasureSnapshot {
+  private static final Logger LOG = LoggerFactory.getLogger(MeasureSnapshot.class);
+  private static final int PAGE_SIZE = 500;
+
+  private final Map<String, Map<String, String>> values;
+
+  private MeasureSnapshot(Map<String, Map<String, String>> values) {
+    this.values = values;
+  }
+
+  public static MeasureSnapshot of(Orchestrator orchestrator, String projectKey, String... metricKeys) {
+    var client = TestUtils.newWsClient(orchestrator).measures();
+    var values = new HashMap<String, Map<String, String>>();
+    var page = 1;
+    Measures.ComponentTreeWsResponse response;
+    do {
+      response = client.componentTree(new ComponentTreeRequest()
+        .setComponent(projectKey)
+        .setMetricKeys(List.of(metricKeys))
+        .setStrategy("all")
+        .setPs(Integer.toString(PAGE_SIZE))
+        .setP(Integer.toString(page)));
+      if (page == 1) {
+        add(values, response.getBaseComponent());
+      }
+      response.getComponentsList().forEach(x -> add(values, x));
+      page++;
+    } while ((long) response.getPaging().getPageIndex() * response.getPaging().getPageSize() < response.getPaging().getTotal());
+    LOG.debug("Measures of {}: {}", projectKey, values);
+    return new MeasureSnapshot(values);
+  }
+
+  @CheckForNull
+  public String get(String componentKey, String metricKey) {
+    return values.getOrDefault(componentKey, Map.of()).get(metricKey);
+  }
+
+  @CheckForNull
+  public Integer getInteger(String componentKey, String metricKey) {
+    var value = get(componentKey, metricKey);
+    return value == null ? null : Integer.parseInt(value);
+  }
+
+  private static void add(Map<String, Map<String, String>> values, Measures.Component component) {
+    var measures = new HashMap<String, String>();
+    component.getMeasuresList().stream().filter(Measures.Measure::hasValue).forEach(x -> measures.put(x.getMetric(), x.getValue()));
+    values.put(component.getKey(), measures);
+  }
+}
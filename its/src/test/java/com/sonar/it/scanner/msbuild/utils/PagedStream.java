@@ -0,0 +1,64 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.sonarqube.ws.Common;
+
+// Streams all items of a paginated web service, used by IssueQuery and ComponentWalker.
+// Pages are requested with the maximum page size. Once the first page reports the total, the remaining pages are fetched in parallel
+// (its.wsClient.parallelPages, default 4, shared by all callers) and streamed in order. Closing the stream cancels the pages not started yet.
+public final class PagedStream {
+  public static final int MAX_PAGE_SIZE = 500;
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Integer.getInteger("its.wsClient.parallelPages", 4), runnable -> {
+    var thread = new Thread(runnable, "its-ws-pages-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private PagedStream() {
+  }
+
+  // The page function receives 1-based page indexes and must request MAX_PAGE_SIZE items per page.
+  // More than maxResults items fails instead of silently returning a part of them.
+  public static <R, T> Stream<T> of(String description, int maxResults, IntFunction<R> page, Function<R, Common.Paging> paging, Function<R, List<T>> items) {
+    var first = page.apply(1);
+    var total = paging.apply(first).getTotal();
+    if (total > maxResults) {
+      throw new IllegalStateException("Too many results for " + description + " to list them all: " + total);
+    }
+    var pages = IntStream.rangeClosed(2, (total + MAX_PAGE_SIZE - 1) / MAX_PAGE_SIZE)
+      .mapToObj(x -> CompletableFuture.supplyAsync(() -> page.apply(x), EXECUTOR))
+      .toList();
+    return Stream.concat(Stream.of(first), pages.stream().map(CompletableFuture::join))
+      .flatMap(x -> items.apply(x).stream())
+      .onClose(() -> pages.forEach(x -> x.cancel(false)));
+  }
+}
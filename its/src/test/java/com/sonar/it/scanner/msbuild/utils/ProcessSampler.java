@@ -0,0 +1,279 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.sonar.orchestrator.util.StreamConsumer;
+import com.sonar.orchestrator.util.command.Command;
+import com.sonar.orchestrator.util.command.CommandException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Runs a command and periodically samples its process tree, to find which steps and fixtures dominate the cost of the ITs.
+// The process is started here instead of by CommandExecutor, so the sampled root is the real process of the command and its descendants
+// are found with ProcessHandle on every platform, also when tests run similar commands in parallel. It is started the way CommandExecutor
+// does: with the environment of this JVM updated by the one of the command, stdout and stderr read separately, and a CommandException
+// when the command can't be started or times out.
+// ProcessHandle does not expose memory usage. Peak memory is the highest sum of the resident memory of the tree seen by the samples:
+// - Linux: VmRSS read from /proc
+// - Windows: the working set, queried by WindowsWorkingSet from a single PowerShell process shared by all the samplers
+// - macOS: not measured, it is -1
+// CPU time is the last value seen for each process, so the work done during the last sampling interval of a process is missed.
+public final class ProcessSampler {
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessSampler.class);
+  private static final long INTERVAL_MS = Long.getLong("its.processSampler.intervalMs", 250);
+  private static final Path REPORT_DIR = Paths.get(System.getProperty("its.processSampler.reportDir", "target/process-stats"));
+  private static final boolean HAS_PROCFS = Files.isDirectory(Paths.get("/proc/self"));
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+  private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    var thread = new Thread(runnable, "its-process-sampler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final String step;
+  private final long startedNanos = System.nanoTime();
+  private final Map<Long, Duration> cpuTimes = new HashMap<>();
+  private ScheduledFuture<?> task;
+  private ProcessHandle root;
+  private long peakResidentBytes = -1;
+
+  private ProcessSampler(String step) {
+    this.step = step;
+  }
+
+  public static ProcessSampler forStep(String step) {
+    return new ProcessSampler(step);
+  }
+
+  // Same contract as CommandExecutor.execute: returns the exit code, or throws a CommandException when the command can't be started or times out
+  public int execute(Command command, StreamConsumer consumer, long timeoutMs) {
+    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    var builder = new ProcessBuilder(command.toStrings());
+    if (command.getDirectory() != null) {
+      builder.directory(command.getDirectory());
+    }
+    updateEnvironment(builder.environment(), command.getEnvironmentVariables());
+    Process process;
+    try {
+      process = builder.start();
+    } catch (IOException e) {
+      throw new CommandException(command, e);
+    }
+    startSampling(process.toHandle());
+    var stdOut = startPipe(process.getInputStream(), consumer, "its-process-stdout-" + process.pid());
+    var stdErr = startPipe(process.getErrorStream(), consumer, "its-process-stderr-" + process.pid());
+    try {
+      if (!process.waitFor(timeoutMs, TimeUnit.MILLISECONDS)) {
+        destroyTree(process);
+        throw new CommandException(command, "Timeout exceeded: " + timeoutMs + " ms", null);
+      }
+      // Descendants that outlive the command, like build servers, can keep the output open. They are not waited for beyond the timeout.
+      stdOut.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      stdErr.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      return process.exitValue();
+    } catch (InterruptedException e) {
+      destroyTree(process);
+      Thread.currentThread().interrupt();
+      throw new CommandException(command, e);
+    }
+  }
+
+  // Must be called in a finally block: the sampling task is cancelled only here
+  public synchronized ProcessStats stop() {
+    if (task != null) {
+      task.cancel(false);
+    }
+    var cpuTime = cpuTimes.values().stream().reduce(Duration.ZERO, Duration::plus);
+    var stats = new ProcessStats(step, Duration.ofNanos(System.nanoTime() - startedNanos).toMillis(), cpuTime.toMillis(), peakResidentBytes, cpuTimes.size());
+    LOG.info("Process stats: {}", stats);
+    return stats;
+  }
+
+  // Appends the steps of an analysis to the JSON report of the test. A test running several analyses gets all of them in the same file.
+  public static synchronized void report(String testName, List<ProcessStats> steps) {
+    var file = REPORT_DIR.resolve(testName.replaceAll("[^A-Za-z0-9_.-]", "_") + ".json");
+    try {
+      Files.createDirectories(REPORT_DIR);
+      var records = new ArrayList<ProcessStats>();
+      if (Files.exists(file)) {
+        records.addAll(GSON.fromJson(Files.readString(file), new TypeToken<List<ProcessStats>>() {
+        }.getType()));
+      }
+      records.addAll(steps);
+      Files.writeString(file, GSON.toJson(records));
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Could not write process stats to {}", file, e);
+    }
+  }
+
+  private synchronized void startSampling(ProcessHandle process) {
+    root = process;
+    task = EXECUTOR.scheduleAtFixedRate(this::sample, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void sample() {
+    try {
+      var tree = Stream.concat(Stream.of(root), root.descendants()).toList();
+      for (var process : tree) {
+        process.info().totalCpuDuration().ifPresent(x -> cpuTimes.merge(process.pid(), x, (a, b) -> a.compareTo(b) > 0 ? a : b));
+      }
+      var residentBytes = residentBytes(tree);
+      if (residentBytes >= 0) {
+        peakResidentBytes = Math.max(peakResidentBytes, residentBytes);
+      }
+    } catch (RuntimeException e) {
+      LOG.debug("Process sampling failed", e);
+    }
+  }
+
+  // The command environment is a copy of the one of this JVM where BaseCommand changed or removed variables. The inherited environment is
+  // updated instead of replaced, so the platform keeps its own handling of it, like the case-insensitive names on Windows.
+  private static void updateEnvironment(Map<String, String> inherited, Map<String, String> command) {
+    var names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    names.addAll(command.keySet());
+    inherited.keySet().removeIf(x -> !names.contains(x));
+    inherited.putAll(command);
+  }
+
+  // Both streams go to the same consumer, like with CommandExecutor. Lines are passed one at a time, so they are never interleaved.
+  private static Thread startPipe(InputStream stream, StreamConsumer consumer, String name) {
+    var thread = new Thread(() -> {
+      try (var reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          synchronized (consumer) {
+            consumer.consumeLine(line);
+          }
+        }
+      } catch (IOException e) {
+        LOG.debug("Reading the output of {} failed", name, e);
+      }
+    }, name);
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  private static void destroyTree(Process process) {
+    process.descendants().forEach(ProcessHandle::destroyForcibly);
+    process.destroyForcibly();
+  }
+
+  // -1 when the platform does not expose the memory of other processes
+  private static long residentBytes(List<ProcessHandle> tree) {
+    if (HAS_PROCFS) {
+      return tree.stream().mapToLong(x -> procResidentBytes(x.pid())).sum();
+    } else if (OSPlatform.isWindows()) {
+      return WindowsWorkingSet.query(tree);
+    } else {
+      return -1;
+    }
+  }
+
+  // A process that exited since the tree was listed does not use memory anymore
+  private static long procResidentBytes(long pid) {
+    try (var lines = Files.lines(Paths.get("/proc", Long.toString(pid), "status"))) {
+      return lines.filter(x -> x.startsWith("VmRSS:")).map(x -> Long.parseLong(x.replaceAll("\\D", "")) * 1024).findFirst().orElse(0L);
+    } catch (IOException | RuntimeException e) {
+      return 0;
+    }
+  }
+
+  // Sums the working set of a list of processes. Starting a process for every sample would cost more than what is measured, so a single
+  // PowerShell process reads comma-separated pids from its input and answers each line with the sum. Processes that exited are skipped.
+  private static final class WindowsWorkingSet {
+    private static final String SCRIPT = "while ($null -ne ($line = [Console]::In.ReadLine())) {"
+      + " $sum = 0; Get-Process -Id ($line -split ',') -ErrorAction SilentlyContinue | ForEach-Object { $sum += $_.WorkingSet64 };"
+      + " [Console]::Out.WriteLine($sum); [Console]::Out.Flush() }";
+
+    private static Process process;
+    private static BufferedWriter input;
+    private static BufferedReader output;
+    private static boolean failed;
+
+    private WindowsWorkingSet() {
+    }
+
+    static synchronized long query(List<ProcessHandle> tree) {
+      if (failed) {
+        return -1;
+      }
+      try {
+        if (process == null) {
+          start();
+        }
+        input.write(String.join(",", tree.stream().map(x -> Long.toString(x.pid())).toList()));
+        input.newLine();
+        input.flush();
+        var line = output.readLine();
+        if (line == null) {
+          throw new IOException("PowerShell exited with " + process.waitFor());
+        }
+        return Long.parseLong(line.trim());
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Working set sampling failed, peak memory is not measured anymore", e);
+        failed = true;
+        if (process != null) {
+          process.destroyForcibly();
+        }
+        return -1;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return -1;
+      }
+    }
+
+    // The process ends by itself when this JVM exits and its input is closed
+    private static void start() throws IOException {
+      var encoded = Base64.getEncoder().encodeToString(SCRIPT.getBytes(StandardCharsets.UTF_16LE));
+      process = new ProcessBuilder("powershell", "-NoLogo", "-NoProfile", "-NonInteractive", "-EncodedCommand", encoded)
+        .redirectError(ProcessBuilder.Redirect.DISCARD)
+        .start();
+      input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII));
+      output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+    }
+  }
+}
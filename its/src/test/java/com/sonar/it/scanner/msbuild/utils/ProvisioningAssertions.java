@@ -28,15 +28,16 @@ public final class ProvisioningAssertions {
   public static void cacheMissAssertions(AnalysisResult result, String sqApiUrl, String userHome, String oldJavaHome, Boolean isCloud, Boolean useSonarScannerCLI) {
     assertCacheMissBeginStep(result.begin(), sqApiUrl, userHome, isCloud, useSonarScannerCLI);
 
-    var endLogs = result.end().getLogs();
+    var endLogs = LogIndex.of(result.end());
 
     var cacheFolderPattern = ".+[\\\\/]cache[\\\\/].+";
     if (useSonarScannerCLI) {
       var escapedOldJavaHome = Pattern.quote(oldJavaHome);
-      TestUtils.matchesSingleLine(endLogs, "Setting the JAVA_HOME for the scanner cli to " + cacheFolderPattern);
-      TestUtils.matchesSingleLine(endLogs, "Overwriting the value of environment variable 'JAVA_HOME'. Old value: " + escapedOldJavaHome + ", new value: " + cacheFolderPattern);
+      endLogs.assertMatches(
+        "Setting the JAVA_HOME for the scanner cli to " + cacheFolderPattern,
+        "Overwriting the value of environment variable 'JAVA_HOME'. Old value: " + escapedOldJavaHome + ", new value: " + cacheFolderPattern);
     } else {
-      TestUtils.matchesSingleLine(endLogs, "Using Java found in Analysis Config: " + cacheFolderPattern + "_extracted.+java(\\.exe|)");
+      endLogs.assertMatches("Using Java found in Analysis Config: " + cacheFolderPattern + "_extracted.+java(\\.exe|)");
     }
   }
 
@@ -44,7 +45,7 @@ public final class ProvisioningAssertions {
     var os = OSPlatform.current().name().toLowerCase();
     var arch = OSPlatform.currentArchitecture().toLowerCase();
     var cacheFolderPattern = Pattern.quote(userHome) + "[\\\\/]cache.+";
-    var beginLogs = begin.getLogs();
+    var beginLogs = LogIndex.of(begin);
     String jreUrlPattern;
     String engineUrlPattern;
     if (isCloud) {
@@ -54,26 +55,28 @@ public final class ProvisioningAssertions {
       jreUrlPattern = "analysis/jres/[^\s]+";
       engineUrlPattern = "analysis/engine";
     }
-    assertThat(beginLogs).contains(
+    beginLogs.assertContains(
       "JreResolver: Resolving JRE path.",
       "Downloading from " + sqApiUrl + "/analysis/jres?os=" + os + "&arch=" + arch + "...",
       "Response received from " + sqApiUrl + "/analysis/jres?os=" + os + "&arch=" + arch + "...");
-    TestUtils.matchesSingleLine(beginLogs, "Cache miss. Could not find '" + cacheFolderPattern + "_extracted.+java(?:\\.exe)?'");
-    TestUtils.matchesSingleLine(beginLogs, "Cache miss. Could not find '" + cacheFolderPattern + "(?:zip|tar\\.gz)'");
-    TestUtils.matchesSingleLine(beginLogs, "Downloading Java JRE from " + jreUrlPattern);
-    TestUtils.matchesSingleLine(beginLogs, "The checksum of the downloaded file is '.+' and the expected checksum is '.+'");
-    TestUtils.matchesSingleLine(beginLogs, "Starting to extract files from archive '" + cacheFolderPattern + "' to folder '" + cacheFolderPattern + "'");
-    TestUtils.matchesSingleLine(beginLogs, "Moving extracted files from '" + cacheFolderPattern + "' to '" + cacheFolderPattern + "_extracted'");
-    TestUtils.matchesSingleLine(beginLogs, "The archive was successfully extracted to '" + cacheFolderPattern + "_extracted'");
-    TestUtils.matchesSingleLine(beginLogs, "JreResolver: Download success. JRE can be found at '" + cacheFolderPattern + "_extracted.+java(?:\\.exe)?'");
+    beginLogs.assertMatches(
+      "Cache miss. Could not find '" + cacheFolderPattern + "_extracted.+java(?:\\.exe)?'",
+      "Cache miss. Could not find '" + cacheFolderPattern + "(?:zip|tar\\.gz)'",
+      "Downloading Java JRE from " + jreUrlPattern,
+      "The checksum of the downloaded file is '.+' and the expected checksum is '.+'",
+      "Starting to extract files from archive '" + cacheFolderPattern + "' to folder '" + cacheFolderPattern + "'",
+      "Moving extracted files from '" + cacheFolderPattern + "' to '" + cacheFolderPattern + "_extracted'",
+      "The archive was successfully extracted to '" + cacheFolderPattern + "_extracted'",
+      "JreResolver: Download success. JRE can be found at '" + cacheFolderPattern + "_extracted.+java(?:\\.exe)?'");
     if (!useSonarScannerCLI) {
-      assertThat(beginLogs).contains(
+      beginLogs.assertContains(
         "EngineResolver: Resolving Scanner Engine path.",
         "Downloading from " + sqApiUrl + "/analysis/engine...",
         "Response received from " + sqApiUrl + "/analysis/engine...",
         "Cache miss. Could not find '");  // + file path to scanner engine
-      TestUtils.matchesSingleLine(beginLogs, "Downloading Scanner Engine from " + engineUrlPattern);
-      TestUtils.matchesSingleLine(beginLogs, "EngineResolver: Download success. Scanner Engine can be found at '" + cacheFolderPattern + "scanner.+\\.jar'"); // flexible assertion to avoid breaking on file name changes
+      beginLogs.assertMatches(
+        "Downloading Scanner Engine from " + engineUrlPattern,
+        "EngineResolver: Download success. Scanner Engine can be found at '" + cacheFolderPattern + "scanner.+\\.jar'"); // flexible assertion to avoid breaking on file name changes
     }
   }
 
@@ -81,11 +84,11 @@ public final class ProvisioningAssertions {
     var javaPattern = Pattern.quote(userHome) + "[\\\\/]cache.+_extracted.+java(?:\\.exe)?";
     var enginePattern = Pattern.quote(userHome) + "[\\\\/]cache.+scanner.+\\.jar"; // flexible assertion to avoid breaking on file name changes
     assertThat(secondBegin.isSuccess()).isTrue();
-    TestUtils.matchesSingleLine(secondBegin.getLogs(),
-      "JreResolver: Cache hit '" + javaPattern + "'");
-    TestUtils.matchesSingleLine(secondBegin.getLogs(),
+    var logs = LogIndex.of(secondBegin);
+    logs.assertMatches(
+      "JreResolver: Cache hit '" + javaPattern + "'",
       "EngineResolver: Cache hit '" + enginePattern + "'");
-    assertThat(secondBegin.getLogs()).doesNotContain(
+    logs.assertDoesNotContain(
       "JreResolver: Cache miss",
       "JreResolver: Cache failure",
       "EngineResolver: Cache miss",
@@ -0,0 +1,81 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sun.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Number of IT classes running in parallel, based on the available cores and on the free memory of the machine.
+// Each unit of parallelism needs a core and its.parallel.memoryPerClassMb of free memory (2048 MB by default, a build with its analyzers),
+// and its.parallel.maxClasses can cap it further. The same budget is used by TestWeightExtension to admit the heavy classes.
+// Free memory is sampled before the SonarQube servers start, so the memory of the servers of the pool is subtracted from it first:
+// its.parallel.serverMemoryMb per server (2048 MB by default, the web, Compute Engine and Elasticsearch processes), times orchestrator.poolSize.
+// The pool gets its.parallel.extraThreads (the parallelism by default) on top of the parallelism. They run the concurrent test methods of admitted
+// classes and replace the workers that wait for the budget in TestWeightExtension. Classes themselves are still admitted only by the budget.
+public class ResourceAwareParallelStrategy implements ParallelExecutionConfigurationStrategy {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceAwareParallelStrategy.class);
+  private static final int KEEP_ALIVE_SECONDS = 30;
+  private static volatile Integer parallelism;
+
+  @Override
+  public ParallelExecutionConfiguration createConfiguration(ConfigurationParameters configurationParameters) {
+    var parallelism = parallelism();
+    var maxPoolSize = parallelism + Math.max(0, Integer.getInteger("its.parallel.extraThreads", parallelism));
+    return new Configuration(parallelism, parallelism, maxPoolSize, parallelism, KEEP_ALIVE_SECONDS);
+  }
+
+  public static int parallelism() {
+    if (parallelism == null) {
+      synchronized (ResourceAwareParallelStrategy.class) {
+        if (parallelism == null) {
+          var cores = Runtime.getRuntime().availableProcessors();
+          var freeMemoryMb = ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getFreeMemorySize() / (1024 * 1024);
+          var serverMemoryMb = Long.getLong("its.parallel.serverMemoryMb", 2048) * Integer.getInteger("orchestrator.poolSize", 1);
+          var memoryPerClassMb = Long.getLong("its.parallel.memoryPerClassMb", 2048);
+          var classesByMemory = Math.max(0, freeMemoryMb - serverMemoryMb) / memoryPerClassMb;
+          var result = (int) Math.max(1, Math.min(Math.min(cores, classesByMemory), Integer.getInteger("its.parallel.maxClasses", Integer.MAX_VALUE)));
+          LOG.info("Running {} IT classes in parallel ({} cores, {} MB of free memory, {} MB of it reserved for the servers)", result, cores, freeMemoryMb, serverMemoryMb);
+          parallelism = result;
+        }
+      }
+    }
+    return parallelism;
+  }
+
+  private record Configuration(int getParallelism, int getMinimumRunnable, int getMaxPoolSize, int getCorePoolSize, int getKeepAliveSeconds)
+    implements ParallelExecutionConfiguration {
+
+    // Called by ForkJoinPool only when a worker blocks while the pool already has maxPoolSize threads. Returning true makes the worker block
+    // without a replacement, instead of failing with a RejectedExecutionException. It never lets the pool go past maxPoolSize: the thread
+    // count stays bounded even when every worker waits for the budget of TestWeightExtension, see ResourceAwareParallelStrategyTest.
+    @Override
+    public Predicate<? super ForkJoinPool> getSaturatePredicate() {
+      return pool -> true;
+    }
+  }
+}
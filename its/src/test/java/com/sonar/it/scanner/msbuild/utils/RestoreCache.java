@@ -0,0 +1,248 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.util.command.Command;
+import com.sonar.orchestrator.util.command.CommandExecutor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// NuGet restore outputs (obj/project.assets.json and friends) of the fixtures, so that each fresh copy of a fixture does not restore again.
+// Entries are keyed by the content of the project files, the build arguments and the SDK version. Absolute paths of the copy the entry was
+// captured from are replaced by placeholders, and replaced back by the path of the new copy when the entry is materialized.
+// Enabled with -Dits.restoreCache=true. When a build using materialized outputs fails, BuildCommand deletes the outputs of that build and
+// falls back to a real restore.
+public final class RestoreCache {
+  public static final boolean ENABLED = Boolean.getBoolean("its.restoreCache");
+
+  private static final Logger LOG = LoggerFactory.getLogger(RestoreCache.class);
+  private static final Path ROOT = Paths.get(System.getProperty("its.restoreCache.dir", Paths.get(System.getProperty("user.home"), ".sonar", "its", "restore-cache").toString()));
+  private static final Set<String> SKIPPED_DIRECTORIES = Set.of("bin", "obj", ".sonarqube", ".vs");
+  private static final Set<String> BUILD_OUTPUT_DIRECTORIES = Set.of("bin", "obj");
+  private static final Pattern PROJECT_FILE = Pattern.compile("(?i).+\\.(csproj|vbproj|fsproj|proj|sln|slnx|props|targets)|packages\\.lock\\.json|packages\\.config|global\\.json|nuget\\.config");
+  private static final Pattern RESTORE_OUTPUT = Pattern.compile("project\\.assets\\.json|project\\.nuget\\.cache|.+\\.nuget\\.(dgspec\\.json|g\\.props|g\\.targets)");
+  private static final String ASSETS_FILE = "project.assets.json";
+  // NuGet writes the paths escaped in JSON files, and with forward slashes in some places
+  private static final String JSON_PLACEHOLDER = "$(ItsRestoreCacheProjectDirJson)";
+  private static final String PLACEHOLDER = "$(ItsRestoreCacheProjectDir)";
+  private static final String SLASH_PLACEHOLDER = "$(ItsRestoreCacheProjectDirSlash)";
+  private static final String SDK_VERSION = sdkVersion();
+
+  private RestoreCache() {
+  }
+
+  public static String key(Path projectDir, List<String> arguments, Map<String, String> environment) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      update(digest, SDK_VERSION);
+      update(digest, OSPlatform.isWindows() ? BuildCommand.msBuildPath() : "dotnet");
+      update(digest, String.valueOf(environment.get("NUGET_PACKAGES")));
+      arguments.forEach(x -> update(digest, x));
+      for (var file : projectFiles(projectDir)) {
+        update(digest, projectDir.relativize(file).toString().replace('\\', '/'));
+        digest.update(Files.readAllBytes(file));
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  // Returns true only when the entry exists and all its restore outputs now point to projectDir
+  public static boolean materialize(Path projectDir, String key) {
+    var entry = ROOT.resolve(key);
+    if (!Files.isDirectory(entry)) {
+      return false;
+    }
+    try (var files = Files.walk(entry)) {
+      var assetsFiles = 0;
+      var expected = jsonPath(projectDir);
+      for (var file : files.filter(Files::isRegularFile).toList()) {
+        var target = projectDir.resolve(entry.relativize(file).toString());
+        var content = Files.readString(file, StandardCharsets.UTF_8)
+          .replace(JSON_PLACEHOLDER, jsonPath(projectDir))
+          .replace(SLASH_PLACEHOLDER, slashPath(projectDir))
+          .replace(PLACEHOLDER, projectDir.toString());
+        if (target.getFileName().toString().equals(ASSETS_FILE)) {
+          if (!content.contains(expected)) {
+            LOG.warn("Restore cache entry {} does not match {}, restoring instead", key, projectDir);
+            return false;
+          }
+          assetsFiles++;
+        }
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, content, StandardCharsets.UTF_8);
+      }
+      LOG.info("Restore cache hit {} for {}", key, projectDir);
+      return assetsFiles > 0;
+    } catch (IOException | UncheckedIOException ex) {
+      LOG.warn("Failed to materialize restore cache entry {} to {}, restoring instead", key, projectDir, ex);
+      return false;
+    }
+  }
+
+  // Concurrent captures of the same key are fine: only the first one is kept
+  public static void capture(Path projectDir, String key) {
+    var entry = ROOT.resolve(key);
+    if (Files.isDirectory(entry)) {
+      return;
+    }
+    var staging = ROOT.resolve(key + ".tmp-" + UUID.randomUUID());
+    try {
+      var outputs = restoreOutputs(projectDir);
+      if (outputs.stream().noneMatch(x -> x.getFileName().toString().equals(ASSETS_FILE))) {
+        return;
+      }
+      for (var file : outputs) {
+        var target = staging.resolve(projectDir.relativize(file).toString());
+        var content = Files.readString(file, StandardCharsets.UTF_8)
+          .replace(jsonPath(projectDir), JSON_PLACEHOLDER)
+          .replace(projectDir.toString(), PLACEHOLDER)
+          .replace(slashPath(projectDir), SLASH_PLACEHOLDER);
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, content, StandardCharsets.UTF_8);
+      }
+      Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+      LOG.info("Restore cache entry {} captured from {}", key, projectDir);
+    } catch (IOException | UncheckedIOException ex) {
+      LOG.debug("Restore cache entry {} was not captured", key, ex);
+    } finally {
+      FileUtils.deleteQuietly(staging.toFile());
+    }
+  }
+
+  public static void invalidate(String key) {
+    FileUtils.deleteQuietly(ROOT.resolve(key).toFile());
+  }
+
+  // bin and obj directories and the ProjectInfo directories in .sonarqube/out, so that the outputs of a failed build can be told apart
+  public static Set<Path> buildOutputs(Path projectDir) {
+    var result = new HashSet<Path>();
+    try {
+      Files.walkFileTree(projectDir, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          var name = dir.getFileName().toString();
+          if (!dir.equals(projectDir) && BUILD_OUTPUT_DIRECTORIES.contains(name)) {
+            result.add(dir);
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return dir.equals(projectDir) || !SKIPPED_DIRECTORIES.contains(name) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+        }
+      });
+      var sonarOut = projectDir.resolve(".sonarqube").resolve("out");
+      if (Files.isDirectory(sonarOut)) {
+        try (var entries = Files.list(sonarOut)) {
+          entries.forEach(result::add);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to list the build outputs of " + projectDir, ex);
+    }
+    return result;
+  }
+
+  // Deletes the build outputs that were not present before the failed build. Otherwise, a second build under an active begin step would
+  // add another set of ProjectInfo directories for the same projects, and the end step would process both.
+  public static void deleteBuildOutputs(Path projectDir, Set<Path> before) {
+    for (var output : buildOutputs(projectDir)) {
+      if (!before.contains(output)) {
+        LOG.info("Deleting {} created by the failed build", output);
+        FileUtils.deleteQuietly(output.toFile());
+      }
+    }
+  }
+
+  private static List<Path> projectFiles(Path projectDir) throws IOException {
+    return walk(projectDir, PROJECT_FILE, true);
+  }
+
+  private static List<Path> restoreOutputs(Path projectDir) throws IOException {
+    return walk(projectDir, RESTORE_OUTPUT, false);
+  }
+
+  private static List<Path> walk(Path projectDir, Pattern fileName, boolean skipObj) throws IOException {
+    var result = new ArrayList<Path>();
+    Files.walkFileTree(projectDir, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        var name = dir.getFileName().toString();
+        var skipped = SKIPPED_DIRECTORIES.contains(name) && !(name.equals("obj") && !skipObj);
+        return !dir.equals(projectDir) && skipped ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (fileName.matcher(file.getFileName().toString()).matches()) {
+          result.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    result.sort(null);
+    return result;
+  }
+
+  private static String jsonPath(Path path) {
+    return path.toString().replace("\\", "\\\\");
+  }
+
+  private static String slashPath(Path path) {
+    return path.toString().replace('\\', '/');
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static String sdkVersion() {
+    var output = new StringBuilder();
+    try {
+      CommandExecutor.create().execute(Command.create("dotnet").addArgument("--version"), output::append, Timeout.ONE_MINUTE.miliseconds);
+    } catch (RuntimeException ex) {
+      LOG.debug("Failed to get the .NET SDK version", ex);
+    }
+    return output.toString().trim();
+  }
+}
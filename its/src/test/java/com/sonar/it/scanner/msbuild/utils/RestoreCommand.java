@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.failureDescription;
 
 public class RestoreCommand extends BaseCommand<RestoreCommand> {
   private static final Logger LOG = LoggerFactory.getLogger(RestoreCommand.class);
@@ -40,10 +41,10 @@ public class RestoreCommand extends BaseCommand<RestoreCommand> {
 
   public BuildResult execute() {
     var command = createCommand();
-    var result = new BuildResult();
+    var result = new SpillingBuildResult();
     LOG.info("Nuget command start: '{}' in {}", command.toCommandLine(), command.getDirectory());
     result.addStatus(CommandExecutor.create().execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds));
-    assertThat(result.isSuccess()).describedAs("NuGet failed. Logs: " + result.getLogs()).isTrue();
+    assertThat(result.isSuccess()).describedAs(failureDescription("NuGet failed.", result)).isTrue();
     LOG.info("Nuget command finish: '{}' in {}", command.toCommandLine(), command.getDirectory());
     return result;
   }
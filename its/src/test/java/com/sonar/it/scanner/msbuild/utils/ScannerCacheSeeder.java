@@ -0,0 +1,239 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sonar.orchestrator.Orchestrator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Writes the files downloaded by the scanners directly into the shared scanner file cache, using the same layout as the scanners:
+//   cache/<sha256>/<filename>                     Scanner engine and JRE archive from the provisioning endpoints (api/v2/analysis/engine and jres)
+//   cache/<md5>/sonar-<pluginKey>-plugin.jar      Plugins downloaded by the scanner engine
+//   cache/<md5>/<filename>                        Bootstrap jars of servers without provisioning (batch/index)
+// Concurrent scanners populating an empty cache race with each other. Seeding it before the tests replaces the warm-up analyses that existed only for that.
+// Every file is verified against its checksum and moved into place atomically, so concurrent readers never see a partial file.
+public class ScannerCacheSeeder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScannerCacheSeeder.class);
+  private static final Gson GSON = new Gson();
+
+  private final HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+  private final String serverUrl;
+  private final String apiUrl;
+  private final String authorization;
+  private final Path cache;
+  private final Path engineDirectory;
+
+  public ScannerCacheSeeder(String serverUrl, String apiUrl, String authorization, Path userHome, Path engineDirectory) {
+    this.serverUrl = serverUrl;
+    this.apiUrl = apiUrl;
+    this.authorization = authorization;
+    this.cache = userHome.resolve("cache");
+    this.engineDirectory = engineDirectory;
+  }
+
+  public static ScannerCacheSeeder forServer(Orchestrator orchestrator, String token) {
+    var url = orchestrator.getServer().getUrl();
+    var authorization = "Basic " + Base64.getEncoder().encodeToString((token + ":").getBytes(StandardCharsets.UTF_8));
+    // The engine served by api/v2/analysis/engine is the jar in lib/scanner, so it does not need to go through HTTP
+    var engineDirectory = orchestrator.getServer().getHome().toPath().resolve("lib").resolve("scanner");
+    return new ScannerCacheSeeder(url, url + "/api/v2", authorization, defaultUserHome(), engineDirectory);
+  }
+
+  public static ScannerCacheSeeder forCloud(String serverUrl, String apiUrl, String token) {
+    return new ScannerCacheSeeder(serverUrl, apiUrl, "Bearer " + token, defaultUserHome(), null);
+  }
+
+  // The user home used by the scanners when sonar.userHome is not set
+  public static Path defaultUserHome() {
+    return Optional.ofNullable(System.getenv("SONAR_USER_HOME")).map(Paths::get).orElse(Paths.get(System.getProperty("user.home"), ".sonar"));
+  }
+
+  // The sonar-scanner-cli bundled with the scanner uses the same engine endpoint and cache layout, so it is covered by the engine as well.
+  public void seed(boolean supportsProvisioning) {
+    if (supportsProvisioning) {
+      seedEngine();
+      seedJre();
+    } else {
+      seedBootstrapJars();
+    }
+    seedPlugins();
+  }
+
+  private void seedEngine() {
+    var metadata = GSON.fromJson(getString(apiUrl + "/analysis/engine"), JsonObject.class);
+    var filename = metadata.get("filename").getAsString();
+    var sha256 = metadata.get("sha256").getAsString();
+    var localEngine = engineDirectory == null ? null : engineDirectory.resolve(filename);
+    if (localEngine != null && Files.isRegularFile(localEngine)) {
+      seedFrom(sha256, filename, "SHA-256", localEngine.toUri(), () -> Files.newInputStream(localEngine));
+    } else if (metadata.has("downloadUrl") && !metadata.get("downloadUrl").isJsonNull()) {
+      var uri = URI.create(metadata.get("downloadUrl").getAsString());
+      seedFrom(sha256, filename, "SHA-256", uri, () -> get(uri, null, null));  // Pre-signed URL, it does not accept the authorization header
+    } else {
+      seed(sha256, filename, "SHA-256", URI.create(apiUrl + "/analysis/engine"), "application/octet-stream");
+    }
+  }
+
+  private void seedJre() {
+    var os = switch (OSPlatform.current()) {
+      case Windows -> "windows";
+      case Linux -> "linux";
+      case MacOS -> "macos";
+    };
+    var jres = GSON.fromJson(getString(apiUrl + "/analysis/jres?os=" + os + "&arch=" + OSPlatform.currentArchitecture()), JsonObject[].class);
+    if (jres == null || jres.length == 0) {
+      LOG.info("No JRE is provided by {} for {} {}", serverUrl, os, OSPlatform.currentArchitecture());
+      return;
+    }
+    // The scanner uses the first JRE and extracts it into <filename>_extracted on its first use
+    var jre = jres[0];
+    var uri = URI.create(apiUrl + "/analysis/jres/" + encode(jre.get("id").getAsString()));
+    seed(jre.get("sha256").getAsString(), jre.get("filename").getAsString(), "SHA-256", uri, "application/octet-stream");
+  }
+
+  private void seedBootstrapJars() {
+    for (var line : getString(serverUrl + "/batch/index").split("\\R")) {
+      var entry = line.split("\\|");
+      if (entry.length == 2) {
+        seed(entry[1], entry[0], "MD5", URI.create(serverUrl + "/batch/file?name=" + encode(entry[0])), null);
+      }
+    }
+  }
+
+  private void seedPlugins() {
+    var plugins = GSON.fromJson(getString(serverUrl + "/api/plugins/installed"), JsonObject.class).getAsJsonArray("plugins");
+    for (var element : plugins) {
+      var plugin = element.getAsJsonObject();
+      var key = plugin.get("key").getAsString();
+      seed(plugin.get("hash").getAsString(), "sonar-" + key + "-plugin.jar", "MD5", URI.create(serverUrl + "/api/plugins/download?plugin=" + encode(key)), null);
+    }
+  }
+
+  private void seed(String hash, String filename, String algorithm, URI uri, String accept) {
+    seedFrom(hash, filename, algorithm, uri, () -> get(uri, accept, authorization));
+  }
+
+  private void seedFrom(String hash, String filename, String algorithm, URI uri, Source source) {
+    var target = cache.resolve(hash).resolve(filename);
+    try {
+      if (Files.isRegularFile(target)) {
+        try (var input = Files.newInputStream(target)) {
+          if (hash.equalsIgnoreCase(copy(input, OutputStream.nullOutputStream(), algorithm))) {
+            return;
+          }
+        }
+        LOG.warn("Checksum mismatch of {}, it will be downloaded again", target);
+      }
+      Files.createDirectories(target.getParent());
+      // The temporary file is in the same directory, so the final move is an atomic rename
+      var temp = target.resolveSibling(UUID.randomUUID() + ".tmp");
+      try {
+        String actual;
+        try (var input = source.open(); var output = Files.newOutputStream(temp)) {
+          actual = copy(input, output, algorithm);
+        }
+        if (!hash.equalsIgnoreCase(actual)) {
+          throw new IllegalStateException("Checksum mismatch of " + uri + ": expected " + hash + " but was " + actual);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOG.info("Seeded scanner cache with {}", target);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to seed the scanner cache with " + uri, ex);
+    }
+  }
+
+  private String getString(String uri) {
+    try (var input = get(URI.create(uri), "application/json", authorization)) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to read " + uri, ex);
+    }
+  }
+
+  private InputStream get(URI uri, String accept, String authorization) {
+    var request = HttpRequest.newBuilder(uri);
+    if (accept != null) {
+      request.header("Accept", accept);
+    }
+    if (authorization != null) {
+      request.header("Authorization", authorization);
+    }
+    try {
+      var response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+      if (response.statusCode() != 200) {
+        response.body().close();
+        throw new IllegalStateException("Request to " + uri + " failed with status " + response.statusCode());
+      }
+      return response.body();
+    } catch (IOException ex) {
+      throw new IllegalStateException("Request to " + uri + " failed", ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Request to " + uri + " was interrupted", ex);
+    }
+  }
+
+  private static String copy(InputStream input, OutputStream output, String algorithm) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+    try (var stream = new DigestInputStream(input, digest)) {
+      stream.transferTo(output);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private interface Source {
+    InputStream open() throws IOException;
+  }
+}
@@ -22,11 +22,9 @@ package com.sonar.it.scanner.msbuild.utils;
 import com.sonar.it.scanner.msbuild.sonarcloud.CloudUtils;
 import com.sonar.orchestrator.Orchestrator;
 import com.sonar.orchestrator.build.BuildResult;
-import com.sonar.orchestrator.server.SynchronousAnalyzer;
 import com.sonar.orchestrator.util.StreamConsumer;
 
 import com.sonar.orchestrator.util.command.Command;
-import com.sonar.orchestrator.util.command.CommandExecutor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -122,15 +120,20 @@ public class ScannerCommand extends BaseCommand<ScannerCommand> {
 
   public BuildResult execute(Orchestrator orchestrator) {
     var command = createCommand(orchestrator);
-    var result = new BuildResult();
+    var result = new SpillingBuildResult();
     LOG.info("Scanner command start: '{}' in {}", command.toCommandLine(), command.getDirectory());
-    result.addStatus(CommandExecutor.create().execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds));
+    var sampler = ProcessSampler.forStep(step.toString());
+    try {
+      result.addStatus(sampler.execute(command, new StreamConsumer.Pipe(result.getLogsWriter()), timeout.miliseconds));
+    } finally {
+      result.setProcessStats(sampler.stop());
+    }
     LOG.info("Scanner command finish: '{}' in {}", command.toCommandLine(), command.getDirectory());
     if (step == Step.end) {
       if (orchestrator == null) {
-        CloudUtils.waitForTaskProcessing(result.getLogs());
+        CloudUtils.waitForTaskProcessing(result);
       } else {
-        new SynchronousAnalyzer(orchestrator.getServer()).waitForDone();  // Wait for Compute Engine to finish processing (all) analysis
+        TestUtils.waitForCeTasks(orchestrator, result, timeout);  // Wait for Compute Engine to finish processing the analysis of this step
       }
     }
     return result;
@@ -0,0 +1,172 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.it.scanner.msbuild.utils.ScannerLogEvent.Kind;
+import com.sonar.it.scanner.msbuild.utils.ScannerLogEvent.Level;
+import com.sonar.it.scanner.msbuild.utils.ScannerLogEvent.Source;
+import com.sonar.orchestrator.build.BuildResult;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Typed view of the begin or end step output. S4NET writes every line as "HH:mm:ss.fff  [WARNING: ]message" and forwards
+// the Scanner Engine output as "HH:mm:ss.fff  [WARNING: ]LEVEL: message". Lines without timestamp continue the previous message.
+// Nothing is cached: of() keeps the events only as long as the caller does, and details(BuildResult, Kind) streams a spilled log in a single
+// pass, keeping only the matching events, so looking for the CE task URL of a big end step never loads it back in memory.
+public final class ScannerLog {
+  private static final Pattern TIMESTAMP = Pattern.compile("^(\\d{2}:\\d{2}:\\d{2}\\.\\d{3})  (.*)$");
+  private static final Pattern ENGINE_LEVEL = Pattern.compile("^(TRACE|DEBUG|INFO|WARN|ERROR): (.*)$", Pattern.DOTALL);
+  private static final String WARNING_PREFIX = "WARNING: ";
+
+  private final List<ScannerLogEvent> events;
+
+  private ScannerLog(List<ScannerLogEvent> events) {
+    this.events = events;
+  }
+
+  public static ScannerLog of(BuildResult result) {
+    var events = new ArrayList<ScannerLogEvent>();
+    parse(result, events::add);
+    return new ScannerLog(List.copyOf(events));
+  }
+
+  public static ScannerLog parse(Stream<String> lines) {
+    var events = new ArrayList<ScannerLogEvent>();
+    parse(lines, events::add);
+    return new ScannerLog(List.copyOf(events));
+  }
+
+  // Details of the events of a single kind, without keeping the other events
+  public static List<String> details(BuildResult result, Kind kind) {
+    var details = new ArrayList<String>();
+    parse(result, x -> {
+      if (x.kind() == kind) {
+        details.add(x.detail());
+      }
+    });
+    return details;
+  }
+
+  private static void parse(BuildResult result, Consumer<ScannerLogEvent> consumer) {
+    if (result instanceof SpillingBuildResult spilling) {
+      try (var lines = spilling.lines()) {
+        parse(lines, consumer);
+      }
+    } else {
+      parse(result.getLogs().lines(), consumer);
+    }
+  }
+
+  private static void parse(Stream<String> lines, Consumer<ScannerLogEvent> consumer) {
+    var parser = new Parser(consumer);
+    lines.forEach(parser::accept);
+    parser.finish();
+  }
+
+  public List<ScannerLogEvent> events() {
+    return events;
+  }
+
+  public List<ScannerLogEvent> events(Kind kind) {
+    return events.stream().filter(x -> x.kind() == kind).toList();
+  }
+
+  public List<String> details(Kind kind) {
+    return events.stream().filter(x -> x.kind() == kind).map(ScannerLogEvent::detail).toList();
+  }
+
+  public Optional<ScannerLogEvent> first(Predicate<ScannerLogEvent> predicate) {
+    return events.stream().filter(predicate).findFirst();
+  }
+
+  // Time between the first events matching the predicates, for example from a DOWNLOAD_START to its DOWNLOAD_FINISH.
+  public Optional<Duration> duration(Predicate<ScannerLogEvent> from, Predicate<ScannerLogEvent> to) {
+    var start = first(x -> x.timestamp() != null && from.test(x));
+    var end = start.flatMap(x -> events.stream().skip(events.indexOf(x)).filter(y -> y.timestamp() != null && to.test(y)).findFirst());
+    return end.map(x -> between(start.get().timestamp(), x.timestamp()));
+  }
+
+  public Optional<Duration> totalDuration() {
+    var timestamps = events.stream().map(ScannerLogEvent::timestamp).filter(x -> x != null).toList();
+    return timestamps.isEmpty() ? Optional.empty() : Optional.of(between(timestamps.get(0), timestamps.get(timestamps.size() - 1)));
+  }
+
+  // Only the time of day is logged, a step running over midnight wraps around.
+  private static Duration between(LocalTime start, LocalTime end) {
+    var duration = Duration.between(start, end);
+    return duration.isNegative() ? duration.plusDays(1) : duration;
+  }
+
+  private static final class Parser {
+    private final Consumer<ScannerLogEvent> consumer;
+    private LocalTime timestamp;
+    private StringBuilder message;
+
+    Parser(Consumer<ScannerLogEvent> consumer) {
+      this.consumer = consumer;
+    }
+
+    void accept(String line) {
+      var matcher = TIMESTAMP.matcher(line);
+      if (matcher.matches()) {
+        flush();
+        timestamp = LocalTime.parse(matcher.group(1));
+        message = new StringBuilder(matcher.group(2));
+      } else if (message == null) {
+        timestamp = null;
+        message = new StringBuilder(line);
+      } else {
+        message.append('\n').append(line);
+      }
+    }
+
+    void finish() {
+      flush();
+    }
+
+    private void flush() {
+      if (message == null) {
+        return;
+      }
+      var text = message.toString();
+      var level = Level.INFO;
+      var source = Source.SCANNER_NET;
+      if (text.startsWith(WARNING_PREFIX)) {
+        level = Level.WARN;
+        text = text.substring(WARNING_PREFIX.length());
+      }
+      var engine = ENGINE_LEVEL.matcher(text);
+      if (engine.matches()) {
+        level = Level.valueOf(engine.group(1));
+        source = Source.SCANNER_ENGINE;
+        text = engine.group(2);
+      }
+      consumer.accept(new ScannerLogEvent(timestamp, level, source, Kind.of(level, source, text), text));
+      message = null;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.time.LocalTime;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+// Single entry of the begin or end step output, see ScannerLog.
+// Multi-line messages (stack traces, property dumps) are merged into the entry that started them.
+public record ScannerLogEvent(@Nullable LocalTime timestamp, Level level, Source source, Kind kind, String message) {
+
+  public enum Level {
+    TRACE, DEBUG, INFO, WARN, ERROR
+  }
+
+  public enum Source {
+    SCANNER_NET,    // S4NET itself. Its debug messages have no prefix and are reported as INFO.
+    SCANNER_ENGINE  // Scanner Engine or Scanner CLI output, forwarded by S4NET with the engine level as prefix
+  }
+
+  public enum Kind {
+    // Logged by the Scanner Engine at the start of the message, S4NET output quoting them is not classified
+    METRIC_ADDED("Adding metric: ", Set.of(Level.DEBUG)),
+    CE_TASK_URL("More about the report processing at ", Set.of(Level.DEBUG, Level.INFO)),
+    CACHE_HIT("Cache hit "),
+    CACHE_MISS("Cache miss. "),
+    DOWNLOAD_START("Downloading from "),
+    DOWNLOAD_FINISH("Response received from "),
+    OTHER("");
+
+    private final String marker;
+    private final Set<Level> engineLevels;  // Empty when the kind is recognized anywhere in the message of any source
+
+    Kind(String marker) {
+      this(marker, Set.of());
+    }
+
+    Kind(String marker, Set<Level> engineLevels) {
+      this.marker = marker;
+      this.engineLevels = engineLevels;
+    }
+
+    static Kind of(Level level, Source source, String message) {
+      for (var kind : values()) {
+        if (kind != OTHER && kind.matches(level, source, message)) {
+          return kind;
+        }
+      }
+      return OTHER;
+    }
+
+    private boolean matches(Level level, Source source, String message) {
+      return engineLevels.isEmpty()
+        ? message.contains(marker)
+        : source == Source.SCANNER_ENGINE && engineLevels.contains(level) && message.startsWith(marker);
+    }
+  }
+
+  // Text after the marker of the kind on the first line, for example the metric of METRIC_ADDED or the URL of CE_TASK_URL.
+  // Continuation lines merged into the event are not part of it.
+  public String detail() {
+    var index = message.indexOf(kind.marker);
+    var end = message.indexOf('\n', index);
+    return message.substring(index + kind.marker.length(), end < 0 ? message.length() : end);
+  }
+}
@@ -33,7 +33,7 @@ public class ServerMinVersionCondition implements ExecutionCondition {
     final var annotation = method.getDeclaredAnnotation(ServerMinVersion.class);
     if (annotation != null) {
       var minVersion = Version.create(annotation.value());
-      var serverVersion = ServerTests.ORCHESTRATOR.getServer().version();
+      var serverVersion = ServerTests.orchestrator(context).getServer().version();
       return serverVersion.isGreaterThanOrEquals(minVersion.getMajor(), minVersion.getMinor())
         ? ConditionEvaluationResult.enabled("SonarQube Server version is " + serverVersion + ", which is greater than or equal to " + minVersion)
         : ConditionEvaluationResult.disabled("SonarQube Server version is " + serverVersion + ", which is less than " + minVersion);
@@ -19,10 +19,64 @@
  */
 package com.sonar.it.scanner.msbuild.utils;
 
+import com.sonar.orchestrator.build.BuildResult;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Supplier;
 import org.assertj.core.api.Assertions;
 
 public class SonarAssertions extends Assertions {
+  private static final int FAILURE_TAIL_LINES = Integer.getInteger("its.logs.failureTailLines", 100);
+
   public static ScannerEngineInputAssert assertThat(ScannerEngineInput actual) {
     return new ScannerEngineInputAssert(actual);
   }
+
+  // Lazy description for describedAs(), evaluated by AssertJ only when the assertion fails.
+  // It contains the last "its.logs.failureTailLines" lines of the logs and the path to a file with the full logs.
+  public static Supplier<String> failureDescription(String message, BuildResult result) {
+    return () -> message + describeLogs("", result);
+  }
+
+  public static Supplier<String> failureDescription(String message, AnalysisResult result) {
+    return () -> message + describeLogs("BEGIN ", result.begin()) + describeLogs("BUILD ", result.build()) + describeLogs("END ", result.end());
+  }
+
+  private static String describeLogs(String step, BuildResult result) {
+    var tail = result instanceof SpillingBuildResult spilling ? spilling.tail() : result.getLogs();
+    return "\n--- Last " + FAILURE_TAIL_LINES + " lines of " + step + "logs ---\n"
+      + lastLines(tail, FAILURE_TAIL_LINES)
+      + "\n--- Full " + step + "logs: " + saveLogs(result) + " ---";
+  }
+
+  private static String lastLines(String logs, int count) {
+    var index = logs.length();
+    if (index > 0 && logs.charAt(index - 1) == '\n') {
+      index--;
+    }
+    while (count > 0 && index > 0) {
+      index = logs.lastIndexOf('\n', index - 1);
+      count--;
+    }
+    return logs.substring(index + 1);
+  }
+
+  // The spill file is deleted together with its BuildResult, so the logs are copied to a file that outlives the test run.
+  private static String saveLogs(BuildResult result) {
+    try {
+      var target = Files.createTempFile("its-failure-", ".log");
+      var logFile = result instanceof SpillingBuildResult spilling ? spilling.logFile() : null;
+      if (logFile == null) {
+        Files.writeString(target, result.getLogs(), StandardCharsets.UTF_8);
+      } else {
+        Files.copy(logFile, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return target.toString();
+    } catch (IOException e) {
+      return "<could not be saved: " + e.getMessage() + ">";
+    }
+  }
 }
@@ -0,0 +1,231 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import com.sonar.orchestrator.build.BuildResult;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// BuildResult that keeps at most "its.logs.memoryLimitKb" (default 1024) characters of the command output in memory.
+// Once the output grows beyond that, it is spilled to a temporary file and only a tail of the same size is kept in memory.
+// MSBuild and scanner logs of the bigger projects can reach hundreds of MB and were previously retained as a single StringWriter per step.
+// Spill files live in a directory of the current run: a file is deleted when its result is garbage-collected, the directory when the JVM exits,
+// and the directories left by killed runs are deleted when the next run loads this class.
+public class SpillingBuildResult extends BuildResult {
+
+  private static final int MEMORY_LIMIT = Integer.getInteger("its.logs.memoryLimitKb", 1024) * 1024;
+  private static final Cleaner CLEANER = Cleaner.create();
+  private static final Path SPILL_ROOT = Paths.get(System.getProperty("java.io.tmpdir"), "its-build-logs").toAbsolutePath();
+  private static final Path SPILL_DIR = SPILL_ROOT.resolve(Long.toString(ProcessHandle.current().pid()));
+  // Cleaners don't run at exit. Writers still open then are closed by the shutdown hook, so the files can be deleted on Windows too.
+  private static final Set<SpillFile> openSpillFiles = ConcurrentHashMap.newKeySet();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(SpillingBuildResult::deleteSpillFiles, "SpillingBuildResult.deleteSpillFiles"));
+    DirectoryDeleter.deleteStaleRunDirectories(SPILL_ROOT);
+  }
+
+  private final LogWriter writer = new LogWriter();
+  private final SpillFile spillFile = new SpillFile();
+  private ProcessStats processStats;
+
+  public SpillingBuildResult() {
+    CLEANER.register(this, spillFile);
+  }
+
+  private static void deleteSpillFiles() {
+    openSpillFiles.forEach(SpillFile::run);
+    DirectoryDeleter.delete(SPILL_DIR);
+  }
+
+  // Null when the command was not sampled by a ProcessSampler
+  public ProcessStats getProcessStats() {
+    return processStats;
+  }
+
+  public void setProcessStats(ProcessStats processStats) {
+    this.processStats = processStats;
+  }
+
+  @Override
+  public Writer getLogsWriter() {
+    return writer;
+  }
+
+  // Materializes the whole output. Prefer lines(), getLogsLines() or tail() for big logs.
+  @Override
+  public String getLogs() {
+    synchronized (writer) {
+      if (spillFile.path == null) {
+        return writer.memory.toString();
+      }
+      try {
+        writer.flushFile();
+        return Files.readString(spillFile.path, StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  @Override
+  public List<String> getLogsLines(Predicate<String> linePredicate) {
+    try (var lines = lines()) {
+      return lines.filter(linePredicate).toList();
+    }
+  }
+
+  // Streams the output line by line without loading it in memory. The stream must be closed when it is read from the spill file.
+  public Stream<String> lines() {
+    synchronized (writer) {
+      if (spillFile.path == null) {
+        return writer.memory.toString().lines();
+      }
+      try {
+        writer.flushFile();
+        return Files.lines(spillFile.path, StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  // Last characters of the output, at most "its.logs.memoryLimitKb". Cheap to call, it never reads the spill file.
+  public String tail() {
+    synchronized (writer) {
+      if (spillFile.path == null) {
+        return writer.memory.toString();
+      }
+      var sb = new StringBuilder(writer.tailLength);
+      writer.tail.forEach(sb::append);
+      return sb.toString();
+    }
+  }
+
+  // Temporary file holding the full output, or null when it still fits in memory.
+  public Path logFile() {
+    synchronized (writer) {
+      if (spillFile.path != null) {
+        writer.flushFile();
+      }
+      return spillFile.path;
+    }
+  }
+
+  // Stdout and stderr are consumed by two different threads, so all writes are serialized on the writer.
+  private class LogWriter extends Writer {
+    private final StringBuilder memory = new StringBuilder();
+    private final ArrayDeque<String> tail = new ArrayDeque<>();
+    private int tailLength;
+    private BufferedWriter file;
+
+    @Override
+    public synchronized void write(char[] buffer, int offset, int length) throws IOException {
+      write(new String(buffer, offset, length));
+    }
+
+    @Override
+    public synchronized void write(String value) throws IOException {
+      if (file == null && memory.length() + value.length() > MEMORY_LIMIT) {
+        spill();
+      }
+      if (file == null) {
+        memory.append(value);
+      } else {
+        file.write(value);
+        appendTail(value);
+      }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+      if (file != null) {
+        file.flush();
+      }
+    }
+
+    // The output is read back after the command finished, the writer itself is never closed by the StreamConsumer.
+    @Override
+    public synchronized void close() throws IOException {
+      flush();
+    }
+
+    private void flushFile() {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void spill() throws IOException {
+      spillFile.path = Files.createTempFile(Files.createDirectories(SPILL_DIR), "its-build-log-", ".log");
+      openSpillFiles.add(spillFile);
+      file = Files.newBufferedWriter(spillFile.path, StandardCharsets.UTF_8);
+      spillFile.writer = file;
+      file.append(memory);
+      appendTail(memory.toString());
+      memory.setLength(0);
+      memory.trimToSize();
+    }
+
+    private void appendTail(String value) {
+      tail.addLast(value);
+      tailLength += value.length();
+      while (tailLength - tail.peekFirst().length() >= MEMORY_LIMIT) {
+        tailLength -= tail.removeFirst().length();
+      }
+    }
+  }
+
+  // Cleaner action, it must not reference the SpillingBuildResult itself.
+  private static class SpillFile implements Runnable {
+    private volatile Path path;
+    private volatile Writer writer;
+
+    @Override
+    public void run() {
+      openSpillFiles.remove(this);
+      try {
+        if (writer != null) {
+          writer.close();
+        }
+        if (path != null) {
+          Files.deleteIfExists(path);
+        }
+      } catch (IOException e) {
+        // Best effort, the file lives in the temporary directory anyway
+      }
+    }
+  }
+}
@@ -36,7 +36,7 @@ public class TempDirectory implements AutoCloseable {
 
   @Override
   public void close() {
-    TestUtils.deleteDirectory(path);
+    DirectoryDeleter.deleteInBackground(path);
   }
 
   @Override
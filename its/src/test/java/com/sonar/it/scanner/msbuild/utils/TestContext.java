@@ -0,0 +1,37 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// Name, temporary directory and diagnostics of a single test. It is created by ContextExtension and injected as a test method parameter.
+// The extension context of the test gives access to the state other extensions keep in its store, like the server leased by ServerTests.
+public record TestContext(String testName, Path tempDir, AnalysisDiagnostics diagnostics, ExtensionContext extensionContext) {
+
+  public static TestContext create(String testName, ExtensionContext extensionContext) {
+    try {
+      return new TestContext(testName, Files.createTempDirectory("junit5-ContextExtension-" + testName + "-").toRealPath(), new AnalysisDiagnostics(), extensionContext);
+    } catch (Exception ex) {
+      throw new RuntimeException(ex.getMessage(), ex);
+    }
+  }
+}
@@ -28,32 +28,26 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.internal.apachecommons.lang3.StringUtils;
 import org.sonarqube.ws.Ce;
 import org.sonarqube.ws.Components;
-import org.sonarqube.ws.Issues;
 import org.sonarqube.ws.Issues.Issue;
 import org.sonarqube.ws.Measures;
-import org.sonarqube.ws.client.HttpConnector;
 import org.sonarqube.ws.client.WsClient;
-import org.sonarqube.ws.client.WsClientFactories;
 import org.sonarqube.ws.client.ce.TaskRequest;
-import org.sonarqube.ws.client.components.TreeRequest;
 import org.sonarqube.ws.client.measures.ComponentRequest;
 import org.sonarqube.ws.client.settings.SetRequest;
 
 import static com.sonar.it.scanner.msbuild.utils.SonarAssertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 public class TestUtils {
   static final Logger LOG = LoggerFactory.getLogger(TestUtils.class);
@@ -78,12 +72,11 @@ public class TestUtils {
 
   public static Path projectDir(Path temp, String projectName) {
     try {
-      File projectToCopy = Paths.get("projects").resolve(projectName).toFile();
       File destination = new File(temp.toFile(), projectName).getCanonicalFile();
       FileUtils.deleteDirectory(destination);
-      Path newFolder = Files.createDirectories(destination.toPath());
-      FileUtils.copyDirectory(projectToCopy, newFolder.toFile());
-      Files.copy(Paths.get("..", "NuGet.Config"), newFolder.resolve("NuGet.Config"));
+      Path newFolder = destination.toPath();
+      FixtureMaterializer.materialize(projectName, newFolder);
+      Files.copy(LocalNuGetFeed.ENABLED ? LocalNuGetFeed.nugetConfig() : Paths.get("..", "NuGet.Config"), newFolder.resolve("NuGet.Config"));
       return newFolder;
     } catch (IOException ex) {
       throw new RuntimeException(ex.getMessage(), ex);
@@ -95,45 +88,12 @@ public class TestUtils {
   }
 
   public static List<Components.Component> listComponents(Orchestrator orchestrator, String projectKey) {
-    return newWsClient(orchestrator)
-      .components()
-      .tree(new TreeRequest().setQualifiers(Collections.singletonList("FIL")).setComponent(projectKey))
-      .getComponentsList();
-  }
-
-  public static void dumpComponentList(Orchestrator orchestrator, String projectKey) {
-    Set<String> componentKeys = listComponents(orchestrator, projectKey).stream().map(Components.Component::getKey).collect(Collectors.toSet());
-    LOG.info("Dumping C# component keys:");
-    for (String key : componentKeys) {
-      LOG.info("  Key: " + key);
-    }
-  }
-
-  public static void dumpProjectIssues(Orchestrator orchestrator, String projectKey) {
-    LOG.info("Dumping all issues:");
-    for (Issue issue : projectIssues(orchestrator, projectKey)) {
-      LOG.info("  Key: " + issue.getKey() + "   Rule: " + issue.getRule() + "  Component:" + issue.getComponent());
-    }
+    return ComponentWalker.of(orchestrator, projectKey).list();
   }
 
   // This will return results for any component key when passed to the projectKey parameter
   public static List<Issue> projectIssues(Orchestrator orchestrator, String projectKey) {
-    List<Issue> results = new ArrayList<>();
-    Issues.SearchWsResponse issues;
-    var client = newWsClient(orchestrator);
-    var request = new org.sonarqube.ws.client.issues.SearchRequest().setComponentKeys(Collections.singletonList(projectKey));
-    var page = 1;
-    do {
-      issues = client.issues().search(request.setP(String.valueOf(page)));
-      results.addAll(issues.getIssuesList());
-      page++;
-    } while (results.size() < issues.getPaging().getTotal());
-    if (!orchestrator.getServer().version().isGreaterThan(9, 9)) {
-      // The filtering per component key does not work with SQ 9.9 and below
-      // We get all issues and filter by hand instead
-      results.removeIf(x -> !StringUtils.equalsAny(projectKey, x.getProject(), x.getComponent()));
-    }
-    return results;
+    return IssueQuery.of(orchestrator, projectKey).list();
   }
 
   public static String getDefaultBranchName(Orchestrator orchestrator) {
@@ -141,19 +101,11 @@ public class TestUtils {
   }
 
   public static WsClient newWsClient(Orchestrator orchestrator) {
-    return WsClientFactories.getDefault().newClient(HttpConnector.newBuilder()
-      .url(orchestrator.getServer().getUrl())
-      .token(ServerTests.token())
-      .build());
+    return WsClients.forToken(orchestrator.getServer().getUrl(), ServerTests.token(orchestrator));
   }
 
   public static void deleteDirectory(Path directory) {
-    // Some have Directory.Delete(directory, true), others have different mentality
-    try {
-      Files.walk(directory).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
-    } catch (IOException ex) {
-      throw new RuntimeException(ex.getMessage(), ex);
-    }
+    DirectoryDeleter.delete(directory);
   }
 
   @CheckForNull
@@ -168,10 +120,11 @@ public class TestUtils {
     return result;
   }
 
-  // The (?s) flag indicates that the dot special character ( . ) should additionally match the following
-// line terminator ("newline") characters in a string, which it would not match otherwise.
-  public static void matchesSingleLine(String input, String pattern) {
-    assertThat(input).matches("(?s).*" + pattern + ".*");
+  // Each step is streamed line by line and the steps after the first match are not read
+  public static void matchesSingleLine(AnalysisResult result, String pattern) {
+    assertThat(Stream.of(result.begin(), result.build(), result.end()).anyMatch(x -> LogIndex.of(x).matches(pattern)))
+      .describedAs("Pattern not found in any line of the analysis logs: " + pattern)
+      .isTrue();
   }
 
   @CheckForNull
@@ -191,6 +144,19 @@ public class TestUtils {
       .getTask();
   }
 
+  // Waits only for the Compute Engine tasks submitted by this end step, so analyses of other test classes in the same queue do not block it
+  public static void waitForCeTasks(Orchestrator orchestrator, BuildResult buildResult, Timeout timeout) {
+    var client = newWsClient(orchestrator);
+    for (var taskId : extractCeTaskIds(buildResult)) {
+      var request = new TaskRequest().setId(taskId);
+      await()
+        .pollDelay(Duration.ZERO)
+        .pollInterval((pollCount, previous) -> Duration.ofMillis(pollCount == 1 ? 100 : Math.min(previous.toMillis() * 2, 2000)))  // Exponential backoff
+        .atMost(Duration.ofMillis(timeout.miliseconds))
+        .until(() -> client.ce().task(request).getTask().getStatus(), x -> x != Ce.TaskStatus.PENDING && x != Ce.TaskStatus.IN_PROGRESS);
+    }
+  }
+
   public static ScannerEngineInput scannerEngineInputJson(AnalysisContext context) throws IOException {
     return new Gson().fromJson(Files.newBufferedReader(context.projectDir.resolve(".sonarqube").resolve("out").resolve("ScannerEngineInput.json")), ScannerEngineInput.class);
   }
@@ -203,11 +169,11 @@ public class TestUtils {
     return taskIds.iterator().next();
   }
 
-  private static List<String> extractCeTaskIds(BuildResult buildResult) {
+  static List<String> extractCeTaskIds(BuildResult buildResult) {
     // The log looks like this:
     // INFO: More about the report processing at http://127.0.0.1:53395/api/ce/task?id=0f639b4c-6421-4620-81d0-eac0f5759f06
-    return buildResult.getLogsLines(s -> s.contains("More about the report processing at")).stream()
-      .map(s -> s.substring(s.lastIndexOf("=") + 1))
-      .collect(Collectors.toList());
+    return ScannerLog.details(buildResult, ScannerLogEvent.Kind.CE_TASK_URL).stream()
+      .map(x -> x.substring(x.lastIndexOf("=") + 1))
+      .toList();
   }
 }
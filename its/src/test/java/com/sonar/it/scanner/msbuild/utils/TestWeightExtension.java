@@ -0,0 +1,97 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// Admits test classes only while the sum of their weights fits into the parallelism of ResourceAwareParallelStrategy.
+// It is the first extension in the @ExtendWith of the test classes, so a class waits for the budget before it leases a server.
+// Classes without @TestWeight have the weight of 1.
+// The waiting worker blocks through ForkJoinPool.managedBlock, so the pool can start a replacement worker within the headroom of
+// ResourceAwareParallelStrategy. Workers joining a stolen class task then do not pin the whole pool. A replacement worker that picks
+// up another class waits for the budget as well, so no extra class is started while the budget is exhausted.
+// The semaphore is fair, so a heavy class is not starved by lighter ones.
+public class TestWeightExtension implements BeforeAllCallback, AfterAllCallback {
+
+  private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(TestWeightExtension.class);
+  private static final Semaphore BUDGET = new Semaphore(ResourceAwareParallelStrategy.parallelism(), true);
+
+  @Override
+  public void beforeAll(ExtensionContext extensionContext) throws InterruptedException {
+    if (extensionContext.getRequiredTestClass().isAnnotationPresent(Nested.class)) {
+      return;  // Admitted with its enclosing class, waiting again could deadlock
+    }
+    var weight = permits(extensionContext);
+    ForkJoinPool.managedBlock(new BudgetBlocker(weight));
+    extensionContext.getStore(NAMESPACE).put("permits", weight);
+  }
+
+  @Override
+  public void afterAll(ExtensionContext extensionContext) {
+    var weight = extensionContext.getStore(NAMESPACE).remove("permits", Integer.class);
+    if (weight != null) {
+      BUDGET.release(weight);
+    }
+  }
+
+  private static final class BudgetBlocker implements ForkJoinPool.ManagedBlocker {
+    private final int permits;
+    private boolean isAcquired;
+
+    private BudgetBlocker(int permits) {
+      this.permits = permits;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!isAcquired) {
+        BUDGET.acquire(permits);
+        isAcquired = true;
+      }
+      return true;
+    }
+
+    // The timed tryAcquire respects the fairness of the semaphore, unlike the untimed one
+    @Override
+    public boolean isReleasable() {
+      if (!isAcquired) {
+        try {
+          isAcquired = BUDGET.tryAcquire(permits, 0, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return isAcquired;
+    }
+  }
+
+  // A class heavier than the whole budget would never be admitted, so it runs alone instead
+  private static int permits(ExtensionContext extensionContext) {
+    var annotation = extensionContext.getRequiredTestClass().getAnnotation(TestWeight.class);
+    var weight = annotation == null ? 1 : annotation.value();
+    return Math.max(1, Math.min(weight, ResourceAwareParallelStrategy.parallelism()));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * SonarScanner for .NET
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.sonar.it.scanner.msbuild.utils;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonarqube.ws.client.HttpConnector;
+import org.sonarqube.ws.client.WsClient;
+import org.sonarqube.ws.client.WsClientFactories;
+import org.sonarqube.ws.client.WsConnector;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+// One WsClient per server URL and credentials, shared by all tests and safe for concurrent use.
+// Each HttpConnector owns an OkHttp client with OkHttp's default connection pool, so reusing it keeps the connections alive between calls
+// instead of opening new ones for every request. The pool itself is not bounded by this class.
+// its.wsClient.maxConcurrentRequests (default 16) limits the requests in flight per client, until their response headers arrive. The bodies
+// are read by the callers after that, so it does not limit the number of open connections.
+// Request counts and latencies are collected per endpoint and logged when the JVM exits.
+public final class WsClients {
+  private static final Logger LOG = LoggerFactory.getLogger(WsClients.class);
+  private static final int MAX_CONCURRENT_REQUESTS = Integer.getInteger("its.wsClient.maxConcurrentRequests", 16);
+  private static final Map<String, WsClient> clients = new ConcurrentHashMap<>();
+  private static final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(WsClients::logStats, "WsClients.logStats"));
+  }
+
+  private WsClients() {
+  }
+
+  public static WsClient forToken(String url, String token) {
+    return clients.computeIfAbsent(url + "|token|" + token, x -> newClient(HttpConnector.newBuilder().url(url).token(token).build()));
+  }
+
+  public static WsClient forCredentials(String url, String login, String password) {
+    return clients.computeIfAbsent(url + "|credentials|" + login + ":" + password, x -> newClient(HttpConnector.newBuilder().url(url).credentials(login, password).build()));
+  }
+
+  public static Map<String, EndpointStats> stats() {
+    return Map.copyOf(stats);
+  }
+
+  private static WsClient newClient(WsConnector connector) {
+    return WsClientFactories.getDefault().newClient(new MeasuredConnector(connector, new Semaphore(MAX_CONCURRENT_REQUESTS)));
+  }
+
+  private static void logStats() {
+    if (stats.isEmpty()) {
+      return;
+    }
+    LOG.info("Web service calls by endpoint:");
+    stats.entrySet().stream()
+      .sorted(Comparator.comparing((Map.Entry<String, EndpointStats> x) -> x.getValue().totalMillis()).reversed())
+      .forEach(x -> LOG.info("  {} {}", x.getKey(), x.getValue()));
+  }
+
+  public static final class EndpointStats {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    public long count() {
+      return count.sum();
+    }
+
+    public long totalMillis() {
+      return totalNanos.sum() / 1_000_000;
+    }
+
+    public long maxMillis() {
+      return maxNanos.get() / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+      var calls = count();
+      return "count=" + calls + " total=" + totalMillis() + "ms avg=" + (calls == 0 ? 0 : totalMillis() / calls) + "ms max=" + maxMillis() + "ms";
+    }
+  }
+
+  // Time to the response headers. Reading the body is not included, it is done by the caller after the permit is released.
+  private record MeasuredConnector(WsConnector delegate, Semaphore permits) implements WsConnector {
+    @Override
+    public String baseUrl() {
+      return delegate.baseUrl();
+    }
+
+    @Override
+    public WsResponse call(WsRequest request) {
+      permits.acquireUninterruptibly();
+      var start = System.nanoTime();
+      try {
+        return delegate.call(request);
+      } finally {
+        stats.computeIfAbsent(request.getMethod() + " " + request.getPath(), x -> new EndpointStats()).record(System.nanoTime() - start);
+        permits.release();
+      }
+    }
+  }
+}